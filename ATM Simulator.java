@@ -1,7 +1,29 @@
 import java.io.*;
-import java.text.SimpleDateFormat;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
 
 // Account class to represent bank accounts
 class Account {
@@ -28,6 +50,8 @@ class Account {
 
 // Transaction class to record all transactions
 class Transaction {
+    static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
     private String transactionId;
     private String accountNumber;
     private String type;
@@ -35,58 +59,1880 @@ class Transaction {
     private String dateTime;
     private double balanceAfter;
     
-    public Transaction(String accountNumber, String type, double amount, double balanceAfter) {
-        this.transactionId = generateTransactionId();
-        this.accountNumber = accountNumber;
-        this.type = type;
-        this.amount = amount;
-        this.balanceAfter = balanceAfter;
-        this.dateTime = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
+    public Transaction(String accountNumber, String type, double amount, double balanceAfter) {
+        this.transactionId = generateTransactionId();
+        this.accountNumber = accountNumber;
+        this.type = type;
+        this.amount = amount;
+        this.balanceAfter = balanceAfter;
+        this.dateTime = LocalDateTime.now().format(DATE_FORMAT);
+    }
+    
+    // Used when reading the ledger back, so the id and date survive the round trip
+    private Transaction(String transactionId, String accountNumber, String type, double amount,
+                        String dateTime, double balanceAfter) {
+        this.transactionId = transactionId;
+        this.accountNumber = accountNumber;
+        this.type = type;
+        this.amount = amount;
+        this.dateTime = dateTime;
+        this.balanceAfter = balanceAfter;
+    }
+    
+    private String generateTransactionId() {
+        return "TXN" + System.currentTimeMillis() + ThreadLocalRandom.current().nextInt(1000, 9999);
+    }
+    
+    @Override
+    public String toString() {
+        return transactionId + "," + accountNumber + "," + type + "," + amount + "," + dateTime + "," + balanceAfter;
+    }
+    
+    public static Transaction fromString(String str) {
+        String[] parts = str.split(",");
+        if (parts.length != 6) return null;
+        
+        try {
+            double amount = Double.parseDouble(parts[3]);
+            double balanceAfter = Double.parseDouble(parts[5]);
+            return new Transaction(parts[0], parts[1], parts[2], amount, parts[4], balanceAfter);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    // Getters
+    public String getTransactionId() { return transactionId; }
+    public String getAccountNumber() { return accountNumber; }
+    public String getType() { return type; }
+    public double getAmount() { return amount; }
+    public String getDateTime() { return dateTime; }
+    public double getBalanceAfter() { return balanceAfter; }
+    
+    // Effect of this transaction on the account balance
+    public double getBalanceChange() {
+        switch (type) {
+            case "DEPOSIT": return amount;
+            case "WITHDRAW": return -amount;
+            default: return 0;
+        }
+    }
+    
+    public long getTimestamp() {
+        return parseTimestamp(dateTime);
+    }
+    
+    public static long parseTimestamp(String dateTime) {
+        return LocalDateTime.parse(dateTime, DATE_FORMAT).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+    
+    public String getFormattedString() {
+        return String.format("%s | %s | %s | MK%.2f | MK%.2f", 
+                            dateTime, transactionId, type, amount, balanceAfter);
+    }
+}
+
+// Ledger class: the transactions file is the source of truth for balances.
+// On load the lines are parsed in parallel chunks, grouped per account in
+// file order, and each account's history is then replayed in parallel.
+// When started from a checkpoint only the lines after it are replayed, on
+// top of the checkpointed balances; the full history is loaded on demand.
+// A (re)load builds a fresh map while records carry on, then holds records
+// off only to replay what they appended meanwhile and to publish the map.
+class Ledger implements Closeable {
+    private static final int READ_WINDOW_BYTES = 64 << 20;
+    private static final int PARSE_SEGMENT_BYTES = 4 << 20;
+    private static final int SCAN_WINDOW_BYTES = 1 << 20;
+    
+    // The loaded histories and the checkpoint they sit on, replaced as a unit
+    private static final class View {
+        final AccountCheckpoint base;
+        final ConcurrentHashMap<String, AccountHistory> histories;
+        
+        View(AccountCheckpoint base, ConcurrentHashMap<String, AccountHistory> histories) {
+            this.base = base;
+            this.histories = histories;
+        }
+        
+        double getBalance(String accountNumber) {
+            AccountHistory history = histories.get(accountNumber);
+            double balance = base == null ? 0.0 : base.getBalance(accountNumber);
+            return history == null ? balance : balance + history.getBalance();
+        }
+    }
+    
+    private final Path file;
+    private volatile View view = new View(null, new ConcurrentHashMap<>());
+    // Records share the read lock; publishing a reloaded view takes the write lock
+    private final ReentrantReadWriteLock publishLock = new ReentrantReadWriteLock();
+    private final Object reloading = new Object();
+    private BufferedWriter writer;
+    private volatile long loadedBytes = 0;
+    
+    public Ledger(String file) {
+        this.file = Paths.get(file);
+    }
+    
+    public void load() throws IOException {
+        synchronized (reloading) {
+            ConcurrentHashMap<String, AccountHistory> histories = new ConcurrentHashMap<>();
+            publish(null, histories, replayFrom(0, histories));
+        }
+    }
+    
+    // Uses the checkpoint's balances and replays only the ledger written after it
+    public void loadTail(AccountCheckpoint checkpoint) throws IOException {
+        synchronized (reloading) {
+            ConcurrentHashMap<String, AccountHistory> histories = new ConcurrentHashMap<>();
+            publish(checkpoint, histories, replayFrom(checkpoint.getLedgerBytes(), histories));
+        }
+    }
+    
+    // Catches the new map up with lines recorded while it was being built and
+    // swaps it in; no record can start or finish in between
+    private void publish(AccountCheckpoint base, ConcurrentHashMap<String, AccountHistory> histories,
+                         long replayedTo) throws IOException {
+        publishLock.writeLock().lock();
+        try {
+            loadedBytes = replayFrom(replayedTo, histories);
+            view = new View(base, histories);
+        } finally {
+            publishLock.writeLock().unlock();
+        }
+    }
+    
+    // Length of the ledger (up to its last complete line) covered by the last load
+    public long getLoadedBytes() { return loadedBytes; }
+    
+    // Reads the ledger from offset in fixed-size windows, so memory stays flat
+    // however large the file is. Each window ends at its last complete line
+    // and is split into segments that are parsed in parallel straight from
+    // the bytes; a partly written last line is left for the next load.
+    private long replayFrom(long offset, ConcurrentHashMap<String, AccountHistory> histories) throws IOException {
+        if (!Files.exists(file)) return offset;
+        long position = offset;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long remaining = channel.size() - offset;
+            byte[] data = new byte[(int) Math.max(1 << 16, Math.min(READ_WINDOW_BYTES, remaining))];
+            int filled = 0;
+            long readAt = offset;
+            while (true) {
+                while (filled < data.length) {
+                    int read = channel.read(ByteBuffer.wrap(data, filled, data.length - filled), readAt);
+                    if (read <= 0) break;
+                    filled += read;
+                    readAt += read;
+                }
+                int end = filled;
+                while (end > 0 && data[end - 1] != '\n') end--;
+                if (end == 0) {
+                    if (filled == data.length) {
+                        throw new IOException("Ledger line at byte " + position + " is longer than " + data.length + " bytes");
+                    }
+                    break;
+                }
+                replayWindow(data, end, histories);
+                System.arraycopy(data, end, data, 0, filled - end);
+                filled -= end;
+                position += end;
+            }
+        }
+        histories.values().parallelStream().forEach(AccountHistory::replay);
+        return position;
+    }
+    
+    private void replayWindow(byte[] data, int end, ConcurrentHashMap<String, AccountHistory> histories) {
+        List<int[]> segments = new ArrayList<>();
+        for (int from = 0; from < end; ) {
+            int to = Math.min(end, from + PARSE_SEGMENT_BYTES);
+            while (data[to - 1] != '\n') to++;
+            segments.add(new int[] {from, to});
+            from = to;
+        }
+        LineParser[] parsed = new LineParser[segments.size()];
+        IntStream.range(0, parsed.length).parallel().forEach(i -> {
+            parsed[i] = new LineParser();
+            parsed[i].parseSegment(data, segments.get(i)[0], segments.get(i)[1]);
+        });
+        
+        // Grouping is sequential so each account keeps its events in file order
+        AccountHistory last = null;
+        String lastAccount = null;
+        for (LineParser parser : parsed) {
+            for (int i = 0; i < parser.count; i++) {
+                if (!parser.accounts[i].equals(lastAccount)) {
+                    lastAccount = parser.accounts[i];
+                    last = histories.computeIfAbsent(lastAccount, a -> new AccountHistory());
+                }
+                last.add(parser.timestamps[i], parser.changes[i]);
+            }
+        }
+    }
+    
+    // Parses ledger lines field by field from raw bytes without building
+    // Strings or Transaction objects, keeping the events of valid lines.
+    // Consecutive lines usually share the same hour, so its epoch value is cached.
+    private static class LineParser {
+        private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+        };
+        private static final byte[] DEPOSIT = "DEPOSIT".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] WITHDRAW = "WITHDRAW".getBytes(StandardCharsets.US_ASCII);
+        
+        private final byte[] hourKey = new byte[13];
+        private boolean hourValid = false;
+        private long hourMillis = 0;
+        
+        String[] accounts = new String[1024];
+        long[] timestamps = new long[1024];
+        double[] changes = new double[1024];
+        int count = 0;
+        
+        void parseSegment(byte[] data, int from, int to) {
+            int start = from;
+            for (int i = from; i < to; i++) {
+                if (data[i] == '\n') {
+                    parse(data, start, i > start && data[i - 1] == '\r' ? i - 1 : i);
+                    start = i + 1;
+                }
+            }
+        }
+        
+        private void parse(byte[] data, int from, int to) {
+            int[] commas = new int[5];
+            int found = 0;
+            for (int i = from; i < to; i++) {
+                if (data[i] == ',') {
+                    if (found == 5) return;
+                    commas[found++] = i;
+                }
+            }
+            if (found != 5) return;
+            int c1 = commas[0], c2 = commas[1], c3 = commas[2], c4 = commas[3], c5 = commas[4];
+            if (c5 - c4 - 1 != 19) return; // yyyy-MM-dd HH:mm:ss
+            if (data[c4 + 14] != ':' || data[c4 + 17] != ':') return;
+            try {
+                double amount = parseAmount(data, c3 + 1, c4);
+                double change = matches(data, c2 + 1, c3, DEPOSIT) ? amount
+                              : matches(data, c2 + 1, c3, WITHDRAW) ? -amount : 0;
+                if (!hourValid || !Arrays.equals(data, c4 + 1, c4 + 14, hourKey, 0, 13)) {
+                    hourValid = false;
+                    hourMillis = Transaction.parseTimestamp(
+                            new String(data, c4 + 1, 13, StandardCharsets.ISO_8859_1) + ":00:00");
+                    System.arraycopy(data, c4 + 1, hourKey, 0, 13);
+                    hourValid = true;
+                }
+                int minutes = digits(data, c4 + 15);
+                int seconds = digits(data, c4 + 18);
+                if (minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59) return;
+                if (count == accounts.length) {
+                    accounts = Arrays.copyOf(accounts, count * 2);
+                    timestamps = Arrays.copyOf(timestamps, count * 2);
+                    changes = Arrays.copyOf(changes, count * 2);
+                }
+                accounts[count] = new String(data, c1 + 1, c2 - c1 - 1, StandardCharsets.UTF_8);
+                timestamps[count] = hourMillis + minutes * 60_000L + seconds * 1000L;
+                changes[count] = change;
+                count++;
+            } catch (NumberFormatException | DateTimeParseException e) {
+                // Malformed line; skip it
+            }
+        }
+        
+        private static boolean matches(byte[] data, int from, int to, byte[] word) {
+            return Arrays.equals(data, from, to, word, 0, word.length);
+        }
+        
+        // A plain decimal of up to 15 digits is exact as a long and divided by
+        // an exact power of ten in one correctly rounded step, which gives the
+        // same double as Double.parseDouble; anything else goes through it
+        private static double parseAmount(byte[] data, int from, int to) {
+            int i = from;
+            boolean negative = i < to && data[i] == '-';
+            if (i < to && (data[i] == '-' || data[i] == '+')) i++;
+            long digits = 0;
+            int count = 0;
+            int scale = -1;
+            for (; i < to; i++) {
+                int d = data[i] - '0';
+                if (d >= 0 && d <= 9) {
+                    digits = digits * 10 + d;
+                    count++;
+                    if (scale >= 0) scale++;
+                    if (count > 15) break;
+                } else if (data[i] == '.' && scale < 0) {
+                    scale = 0;
+                } else {
+                    break;
+                }
+            }
+            if (i < to || count == 0) {
+                return Double.parseDouble(new String(data, from, to - from, StandardCharsets.ISO_8859_1));
+            }
+            double value = scale > 0 ? digits / POWERS_OF_TEN[scale] : digits;
+            return negative ? -value : value;
+        }
+        
+        private static int digits(byte[] data, int at) {
+            int high = data[at] - '0';
+            int low = data[at + 1] - '0';
+            return high < 0 || high > 9 || low < 0 || low > 9 ? -1 : high * 10 + low;
+        }
+    }
+    
+    public double getBalance(String accountNumber) {
+        return view.getBalance(accountNumber);
+    }
+    
+    // Balance as it was at the given time (epoch milliseconds)
+    public double getBalanceAt(String accountNumber, long timestamp) throws IOException {
+        if (view.base != null) {
+            synchronized (reloading) {
+                // Past balances need every event, not just those since the checkpoint
+                if (view.base != null) load();
+            }
+        }
+        AccountHistory history = view.histories.get(accountNumber);
+        if (history == null) return 0.0;
+        synchronized (history) {
+            return history.getBalanceAt(timestamp);
+        }
+    }
+    
+    public int getAccountCount() { return view.histories.size(); }
+    
+    // Every transaction for the account, read from the file in ledger order
+    public List<Transaction> readHistory(String accountNumber) throws IOException {
+        List<Transaction> history = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(file.toFile()))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                Transaction txn = Transaction.fromString(line);
+                if (txn != null && txn.getAccountNumber().equals(accountNumber)) {
+                    history.add(txn);
+                }
+            }
+        }
+        return history;
+    }
+    
+    interface WithdrawalVisitor {
+        void visit(String accountNumber, long timestamp, double amount);
+    }
+    
+    // Visits every withdrawal made at or after the given time (epoch milliseconds).
+    // Those the checkpoint folded into its balances are read back from the file.
+    public void forEachWithdrawalSince(long since, WithdrawalVisitor visitor) throws IOException {
+        View current = view;
+        if (current.base != null) {
+            forEachWithdrawalBefore(current.base.getLedgerBytes(), since, visitor);
+        }
+        current.histories.forEach((accountNumber, history) -> {
+            synchronized (history) {
+                history.forEachWithdrawalSince(since, accountNumber, visitor);
+            }
+        });
+    }
+    
+    // Walks back from the given offset a window at a time until a window starts
+    // before since, so only about the last day of the file is read; lines are
+    // appended in time order
+    private void forEachWithdrawalBefore(long offset, long since, WithdrawalVisitor visitor) throws IOException {
+        if (!Files.exists(file)) return;
+        List<LineParser> windows = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            byte[] data = new byte[SCAN_WINDOW_BYTES];
+            long end = Math.min(offset, channel.size());
+            while (end > 0) {
+                long from = Math.max(0, end - data.length);
+                int length = (int) (end - from);
+                int filled = 0;
+                while (filled < length) {
+                    int read = channel.read(ByteBuffer.wrap(data, filled, length - filled), from + filled);
+                    if (read <= 0) break;
+                    filled += read;
+                }
+                // The first line is usually cut off; it is read with the window before
+                int start = 0;
+                if (from > 0) {
+                    while (start < length && data[start] != '\n') start++;
+                    if (start == length) {
+                        throw new IOException("Ledger line before byte " + end + " is longer than " + data.length + " bytes");
+                    }
+                    start++;
+                }
+                LineParser parser = new LineParser();
+                parser.parseSegment(data, start, length);
+                windows.add(parser);
+                end = from + start;
+                if (parser.count > 0 && parser.timestamps[0] < since) break;
+            }
+        }
+        for (int w = windows.size() - 1; w >= 0; w--) {
+            LineParser parser = windows.get(w);
+            for (int i = 0; i < parser.count; i++) {
+                if (parser.changes[i] < 0 && parser.timestamps[i] >= since) {
+                    visitor.visit(parser.accounts[i], parser.timestamps[i], -parser.changes[i]);
+                }
+            }
+        }
+    }
+    
+    // Appends a DEPOSIT or WITHDRAW to the file and applies it to the balance
+    public Transaction record(String accountNumber, String type, double amount) throws IOException {
+        return record(accountNumber, type, amount, false);
+    }
+    
+    // Records the withdrawal only if the balance covers it, checked under the
+    // same lock that applies it; null when funds are short
+    public Transaction recordWithdrawal(String accountNumber, double amount) throws IOException {
+        return record(accountNumber, "WITHDRAW", amount, true);
+    }
+    
+    private Transaction record(String accountNumber, String type, double amount, boolean covered) throws IOException {
+        publishLock.readLock().lock();
+        try {
+            View current = view;
+            AccountHistory history = current.histories.computeIfAbsent(accountNumber, a -> new AccountHistory());
+            synchronized (history) {
+                double balance = current.getBalance(accountNumber);
+                if (covered && amount > balance) return null;
+                double change = "WITHDRAW".equals(type) ? -amount : amount;
+                Transaction txn = new Transaction(accountNumber, type, amount, balance + change);
+                write(txn);
+                history.record(txn.getTimestamp(), change);
+                return txn;
+            }
+        } finally {
+            publishLock.readLock().unlock();
+        }
+    }
+    
+    private synchronized void write(Transaction txn) throws IOException {
+        if (writer == null) {
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        writer.write(txn.toString());
+        writer.newLine();
+        writer.flush();
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
+
+// AccountHistory class: one account's events with a balance snapshot after
+// every SNAPSHOT_INTERVAL events, so a past balance only replays the events
+// since the nearest snapshot
+class AccountHistory {
+    static final int SNAPSHOT_INTERVAL = 64;
+    
+    private long[] timestamps = new long[8];
+    private double[] changes = new double[8];
+    private double[] snapshots = new double[1];
+    private int count = 0;
+    private double balance = 0.0;
+    
+    // Adds an event without updating balances; call replay() once all are added
+    void add(long timestamp, double change) {
+        if (count == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, count * 2);
+            changes = Arrays.copyOf(changes, count * 2);
+        }
+        // Keep timestamps non-decreasing so they can be binary searched
+        timestamps[count] = count > 0 ? Math.max(timestamps[count - 1], timestamp) : timestamp;
+        changes[count] = change;
+        count++;
+    }
+    
+    void replay() {
+        balance = 0.0;
+        snapshots = new double[count / SNAPSHOT_INTERVAL + 1];
+        for (int i = 0; i < count; i++) {
+            balance += changes[i];
+            if ((i + 1) % SNAPSHOT_INTERVAL == 0) {
+                snapshots[(i + 1) / SNAPSHOT_INTERVAL - 1] = balance;
+            }
+        }
+    }
+    
+    void record(long timestamp, double change) {
+        add(timestamp, change);
+        balance += change;
+        if (count % SNAPSHOT_INTERVAL == 0) {
+            int index = count / SNAPSHOT_INTERVAL - 1;
+            if (index >= snapshots.length) {
+                snapshots = Arrays.copyOf(snapshots, Math.max(index + 1, snapshots.length * 2));
+            }
+            snapshots[index] = balance;
+        }
+    }
+    
+    double getBalance() { return balance; }
+    int getEventCount() { return count; }
+    
+    double getBalanceAt(long timestamp) {
+        int events = countAtOrBefore(timestamp);
+        int snapshot = events / SNAPSHOT_INTERVAL;
+        double result = snapshot > 0 ? snapshots[snapshot - 1] : 0.0;
+        for (int i = snapshot * SNAPSHOT_INTERVAL; i < events; i++) {
+            result += changes[i];
+        }
+        return result;
+    }
+    
+    void forEachWithdrawalSince(long since, String accountNumber, Ledger.WithdrawalVisitor visitor) {
+        for (int i = countAtOrBefore(since - 1); i < count; i++) {
+            if (changes[i] < 0) {
+                visitor.visit(accountNumber, timestamps[i], -changes[i]);
+            }
+        }
+    }
+    
+    // Number of events at or before the timestamp
+    private int countAtOrBefore(long timestamp) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] <= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
+
+// AccountCheckpoint class: a memory-mapped snapshot of every account (PIN,
+// name and balance) in an open-addressing table keyed by account number,
+// together with how many bytes of the accounts and transactions files it
+// covers. Lookups read the mapped file directly, so opening it parses no
+// CSV and puts nothing on the heap.
+class AccountCheckpoint {
+    private static final int MAGIC = 0x41544D43; // "ATMC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+    // Slot: key (8), balance (8), name offset (4), name length (4), PIN (4), padding (4)
+    private static final int SLOT_BYTES = 32;
+    private static final int PIN_LENGTH = 4;
+    
+    private final MappedByteBuffer buffer;
+    private final long accountsBytes;
+    private final long ledgerBytes;
+    private final int capacity;
+    private final int accountCount;
+    private final int namesStart;
+    
+    private AccountCheckpoint(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an account checkpoint");
+        }
+        accountsBytes = buffer.getLong(8);
+        ledgerBytes = buffer.getLong(16);
+        capacity = buffer.getInt(24);
+        accountCount = buffer.getInt(28);
+        namesStart = buffer.getInt(32);
+        if (Integer.bitCount(capacity) != 1 || namesStart != HEADER_BYTES + (long) capacity * SLOT_BYTES
+                || namesStart > buffer.capacity()) {
+            throw new IOException("Corrupt account checkpoint");
+        }
+    }
+    
+    public static AccountCheckpoint open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new AccountCheckpoint(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+    
+    // Writes a checkpoint to a temporary file and moves it into place
+    public static void write(Path file, Collection<Account> accounts, Ledger ledger,
+                             long accountsBytes, long ledgerBytes) throws IOException {
+        int capacity = Integer.highestOneBit(Math.max(16, accounts.size() * 2 - 1)) << 1;
+        List<byte[]> names = new ArrayList<>(accounts.size());
+        long namesLength = 0;
+        for (Account account : accounts) {
+            if (toKey(account.getAccountNumber()) == 0 || account.getPin().length() != PIN_LENGTH) {
+                throw new IOException("Account " + account.getAccountNumber() + " cannot be checkpointed");
+            }
+            byte[] name = account.getAccountHolderName().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            namesLength += name.length;
+        }
+        long namesStart = HEADER_BYTES + (long) capacity * SLOT_BYTES;
+        if (namesStart + namesLength > Integer.MAX_VALUE) {
+            throw new IOException("Too many accounts for one checkpoint file");
+        }
+        
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, namesStart + namesLength);
+            out.putInt(0, MAGIC);
+            out.putInt(4, VERSION);
+            out.putLong(8, accountsBytes);
+            out.putLong(16, ledgerBytes);
+            out.putInt(24, capacity);
+            out.putInt(28, accounts.size());
+            out.putInt(32, (int) namesStart);
+            int nameOffset = 0;
+            int i = 0;
+            for (Account account : accounts) {
+                long key = toKey(account.getAccountNumber());
+                int slot = hash(key) & (capacity - 1);
+                while (out.getLong(slotPosition(slot)) != 0) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                int at = slotPosition(slot);
+                byte[] name = names.get(i++);
+                out.putLong(at, key);
+                out.putDouble(at + 8, ledger.getBalance(account.getAccountNumber()));
+                out.putInt(at + 16, nameOffset);
+                out.putInt(at + 20, name.length);
+                for (int p = 0; p < PIN_LENGTH; p++) {
+                    out.put(at + 24 + p, (byte) account.getPin().charAt(p));
+                }
+                out.put((int) namesStart + nameOffset, name);
+                nameOffset += name.length;
+            }
+            out.force();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    public long getAccountsBytes() { return accountsBytes; }
+    public long getLedgerBytes() { return ledgerBytes; }
+    public int getAccountCount() { return accountCount; }
+    
+    // Account with its checkpointed balance, or null if it is not in the checkpoint
+    public Account find(String accountNumber) {
+        int at = find(toKey(accountNumber));
+        if (at < 0) return null;
+        char[] pin = new char[PIN_LENGTH];
+        for (int p = 0; p < PIN_LENGTH; p++) {
+            pin[p] = (char) buffer.get(at + 24 + p);
+        }
+        byte[] name = new byte[buffer.getInt(at + 20)];
+        buffer.get(namesStart + buffer.getInt(at + 16), name);
+        return new Account(accountNumber, new String(pin), buffer.getDouble(at + 8),
+                           new String(name, StandardCharsets.UTF_8));
+    }
+    
+    public double getBalance(String accountNumber) {
+        int at = find(toKey(accountNumber));
+        return at < 0 ? 0.0 : buffer.getDouble(at + 8);
+    }
+    
+    public boolean contains(String accountNumber) {
+        return find(toKey(accountNumber)) >= 0;
+    }
+    
+    // Byte position of the key's slot, or -1
+    private int find(long key) {
+        if (key == 0) return -1;
+        int slot = hash(key) & (capacity - 1);
+        while (true) {
+            int at = slotPosition(slot);
+            long stored = buffer.getLong(at);
+            if (stored == key) return at;
+            if (stored == 0) return -1;
+            slot = (slot + 1) & (capacity - 1);
+        }
+    }
+    
+    private static int slotPosition(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+    
+    // Digit strings of up to 15 digits, with the length in the top four bits
+    // so leading zeros stay significant; 0 means "not representable"
+    static long toKey(String accountNumber) {
+        int length = accountNumber.length();
+        if (length == 0 || length > 15) return 0;
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = accountNumber.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return 0;
+            value = value * 10 + digit;
+        }
+        return ((long) length << 60) | value;
+    }
+    
+    static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
+
+// WithdrawalGuard class: a per-account daily withdrawal limit and a velocity
+// rule (no more than MAX_WITHDRAWALS in the last WINDOW_MINUTES). The window
+// is counted in BUCKETS clock-aligned buckets plus the one before them, of
+// which only the part still inside the window is counted, pro rata. That
+// assumes the oldest bucket's withdrawals were spread evenly over it, so a
+// burst at its very end can be undercounted as it ages out. State lives in
+// an open-addressing table keyed by the account number as a long; each slot
+// is one 64-byte stride of an atomic long array (key, daily total, window
+// buckets) updated by compare-and-set, so a check reads one small stretch
+// of memory, takes no locks and does no I/O. Each counter carries the day or time
+// bucket it belongs to and starts over once that has passed. Accounts beyond
+// the table's capacity get a stride of their own in an overflow map.
+class WithdrawalGuard {
+    enum Decision { APPROVED, DAILY_LIMIT, VELOCITY }
+    
+    static final double DAILY_LIMIT = 100000.0;
+    static final int MAX_WITHDRAWALS = 5;
+    static final int WINDOW_MINUTES = 10;
+    // Buckets of WINDOW_MINUTES / BUCKETS each; one more is kept for the
+    // part of the window that reaches back before them
+    static final int BUCKETS = 5;
+    private static final int KEPT_BUCKETS = BUCKETS + 1;
+    
+    // Slot layout in longs: key, daily total, KEPT_BUCKETS window buckets
+    private static final int STRIDE = 8;
+    private static final int DAILY = 1;
+    private static final int FIRST_BUCKET = 2;
+    // Probes before an account is moved to the overflow map
+    private static final int MAX_PROBES = 64;
+    
+    // Daily total: day number in the high bits, cents withdrawn that day in the low bits
+    private static final int CENT_BITS = 44;
+    private static final long CENT_MASK = (1L << CENT_BITS) - 1;
+    // Bucket: bucket number in the high bits, withdrawals in it in the low bits
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    
+    private final int mask;
+    private final AtomicLongArray table;
+    private final ConcurrentHashMap<String, AtomicLongArray> overflow = new ConcurrentHashMap<>();
+    private final long dailyLimitCents;
+    private final int maxWithdrawals;
+    private final long bucketMillis;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private volatile Day today = new Day(0, 0, 0);
+    
+    // Local calendar day, cached so most checks do not touch the time zone rules
+    private static final class Day {
+        final long number;
+        final long start;
+        final long end;
+        
+        Day(long number, long start, long end) {
+            this.number = number;
+            this.start = start;
+            this.end = end;
+        }
+    }
+    
+    public WithdrawalGuard(int expectedAccounts) {
+        this(expectedAccounts, DAILY_LIMIT, MAX_WITHDRAWALS, WINDOW_MINUTES);
+    }
+    
+    public WithdrawalGuard(int expectedAccounts, double dailyLimit, int maxWithdrawals, int windowMinutes) {
+        // Room for half as many accounts again before the table fills up
+        int capacity = Integer.highestOneBit(Math.max(1024, expectedAccounts + expectedAccounts / 2)) << 1;
+        this.mask = capacity - 1;
+        this.table = new AtomicLongArray(capacity * STRIDE);
+        this.dailyLimitCents = Math.round(dailyLimit * 100);
+        this.maxWithdrawals = maxWithdrawals;
+        this.bucketMillis = windowMinutes * 60_000L / BUCKETS;
+    }
+    
+    // Counts the withdrawal against both rules if it passes them; a reservation
+    // that is not followed by a recorded withdrawal must be released
+    public Decision reserve(String accountNumber, double amount, long now) {
+        AtomicLongArray state = table;
+        int slot = slotFor(accountNumber);
+        if (slot < 0) {
+            state = overflowFor(accountNumber);
+            slot = 0;
+        }
+        if (!reserveVelocity(state, slot, now)) return Decision.VELOCITY;
+        if (!reserveDaily(state, slot, dayNumber(now), Math.round(amount * 100), false)) {
+            releaseVelocity(state, slot, now / bucketMillis);
+            return Decision.DAILY_LIMIT;
+        }
+        return Decision.APPROVED;
+    }
+    
+    public void release(String accountNumber, double amount, long now) {
+        AtomicLongArray state = table;
+        int slot = slotFor(accountNumber);
+        if (slot < 0) {
+            state = overflowFor(accountNumber);
+            slot = 0;
+        }
+        releaseVelocity(state, slot, now / bucketMillis);
+        long day = dayNumber(now);
+        long cents = Math.round(amount * 100);
+        int at = slot + DAILY;
+        while (true) {
+            long current = state.get(at);
+            if ((current >>> CENT_BITS) != day) return;
+            long spent = Math.max(0, (current & CENT_MASK) - cents);
+            if (state.compareAndSet(at, current, (day << CENT_BITS) | spent)) return;
+        }
+    }
+    
+    // Counts a withdrawal that has already happened, such as one replayed from
+    // the ledger at startup, without applying the rules
+    public void record(String accountNumber, double amount, long timestamp, long now) {
+        AtomicLongArray state = table;
+        int slot = slotFor(accountNumber);
+        if (slot < 0) {
+            state = overflowFor(accountNumber);
+            slot = 0;
+        }
+        long bucket = timestamp / bucketMillis;
+        long currentBucket = now / bucketMillis;
+        if (bucket >= currentBucket - BUCKETS && bucket <= currentBucket) {
+            incrementBucket(state, slot, bucket);
+        }
+        long day = dayNumber(now);
+        Day current = today;
+        if (current.number == day && timestamp >= current.start && timestamp < current.end) {
+            reserveDaily(state, slot, day, Math.round(amount * 100), true);
+        }
+    }
+    
+    private boolean reserveVelocity(AtomicLongArray state, int slot, long now) {
+        long bucket = now / bucketMillis;
+        incrementBucket(state, slot, bucket);
+        // Totals are in withdrawal-milliseconds so the oldest bucket can count in part
+        long total = 0;
+        for (int age = 0; age <= BUCKETS; age++) {
+            long value = state.get(slot + FIRST_BUCKET + (int) ((bucket - age) % KEPT_BUCKETS));
+            // A bucket holding an older number has a stale count and is skipped
+            if ((value >>> COUNT_BITS) != bucket - age) continue;
+            long weight = age < BUCKETS ? bucketMillis : bucketMillis - (now - bucket * bucketMillis);
+            total += (value & COUNT_MASK) * weight;
+        }
+        if (total > maxWithdrawals * bucketMillis) {
+            releaseVelocity(state, slot, bucket);
+            return false;
+        }
+        return true;
+    }
+    
+    private void incrementBucket(AtomicLongArray state, int slot, long bucket) {
+        int at = slot + FIRST_BUCKET + (int) (bucket % KEPT_BUCKETS);
+        while (true) {
+            long current = state.get(at);
+            long next = (current >>> COUNT_BITS) == bucket
+                      ? (current & COUNT_MASK) == COUNT_MASK ? current : current + 1
+                      : (bucket << COUNT_BITS) | 1;
+            if (state.compareAndSet(at, current, next)) return;
+        }
+    }
+    
+    private void releaseVelocity(AtomicLongArray state, int slot, long bucket) {
+        int at = slot + FIRST_BUCKET + (int) (bucket % KEPT_BUCKETS);
+        while (true) {
+            long current = state.get(at);
+            if ((current >>> COUNT_BITS) != bucket || (current & COUNT_MASK) == 0) return;
+            if (state.compareAndSet(at, current, current - 1)) return;
+        }
+    }
+    
+    private boolean reserveDaily(AtomicLongArray state, int slot, long day, long cents, boolean force) {
+        int at = slot + DAILY;
+        while (true) {
+            long current = state.get(at);
+            long spent = (current >>> CENT_BITS) == day ? current & CENT_MASK : 0;
+            if (!force && spent + cents > dailyLimitCents) return false;
+            long next = (day << CENT_BITS) | Math.min(CENT_MASK, spent + cents);
+            if (state.compareAndSet(at, current, next)) return true;
+        }
+    }
+    
+    private long dayNumber(long now) {
+        Day day = today;
+        if (now < day.start || now >= day.end) {
+            LocalDate date = Instant.ofEpochMilli(now).atZone(zone).toLocalDate();
+            day = new Day(date.toEpochDay(),
+                          date.atStartOfDay(zone).toInstant().toEpochMilli(),
+                          date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+            // Only move forward, so a late thread cannot roll the cache back a day
+            if (day.number >= today.number) today = day;
+        }
+        return day.number;
+    }
+    
+    // A stride of the account's own, for accounts the table has no room for
+    private AtomicLongArray overflowFor(String accountNumber) {
+        return overflow.computeIfAbsent(accountNumber, a -> new AtomicLongArray(STRIDE));
+    }
+    
+    // Index of the account's slot in the table, claiming a free one on first
+    // use; -1 if there is none within MAX_PROBES. Slots are never given back,
+    // so an account that once misses the table always misses it.
+    private int slotFor(String accountNumber) {
+        long key = AccountCheckpoint.toKey(accountNumber);
+        if (key == 0) {
+            // Not a short digit string: fall back to its hash, kept clear of digit keys
+            key = (1L << 32) | (accountNumber.hashCode() & 0xffffffffL);
+        }
+        int slot = AccountCheckpoint.hash(key) & mask;
+        for (int probes = 0; probes < MAX_PROBES; probes++) {
+            int at = slot * STRIDE;
+            long stored = table.get(at);
+            if (stored == key) return at;
+            if (stored == 0) {
+                if (table.compareAndSet(at, 0, key)) return at;
+                if (table.get(at) == key) return at;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+}
+
+// AtmCore class: accounts and money movement without any console I/O.
+// bootstrap() is the single initialization path: it starts from the
+// account checkpoint when one matches the data files (reading only what
+// was appended since), and from the CSV files otherwise. Class
+// initialization does no I/O, so the classes can be archived with CDS.
+class AtmCore implements Closeable {
+    // What became of a withdrawal: done, or which check declined it
+    enum WithdrawalResult { APPROVED, INSUFFICIENT_FUNDS, DAILY_LIMIT, VELOCITY }
+    
+    private final Path accountsFile;
+    private final Path checkpointFile;
+    private final Ledger ledger;
+    private final LongSupplier clock;
+    // Every account in full mode; accounts added or changed since the checkpoint otherwise
+    private final ConcurrentHashMap<String, Account> accounts = new ConcurrentHashMap<>();
+    private AccountCheckpoint checkpoint;
+    private WithdrawalGuard guard;
+    private long accountsBytes = 0;
+    
+    private AtmCore(String accountsFile, String transactionsFile, String checkpointFile, LongSupplier clock) {
+        this.accountsFile = Paths.get(accountsFile);
+        this.checkpointFile = Paths.get(checkpointFile);
+        this.ledger = new Ledger(transactionsFile);
+        this.clock = clock;
+    }
+    
+    public static AtmCore bootstrap(String accountsFile, String transactionsFile, String checkpointFile)
+            throws IOException {
+        return bootstrap(accountsFile, transactionsFile, checkpointFile, System::currentTimeMillis);
+    }
+    
+    // The clock (epoch milliseconds) is what the withdrawal limits are judged
+    // by; a replay passes the workload's own time so its decisions repeat
+    public static AtmCore bootstrap(String accountsFile, String transactionsFile, String checkpointFile,
+                                    LongSupplier clock) throws IOException {
+        AtmCore core = new AtmCore(accountsFile, transactionsFile, checkpointFile, clock);
+        AccountCheckpoint checkpoint = core.openCheckpoint(transactionsFile);
+        if (checkpoint == null) {
+            core.loadAccounts(0);
+            core.ledger.load();
+        } else {
+            core.checkpoint = checkpoint;
+            core.loadAccounts(checkpoint.getAccountsBytes());
+            core.ledger.loadTail(checkpoint);
+        }
+        core.startGuard();
+        return core;
+    }
+    
+    // Ignores the checkpoint and parses both CSV files
+    public static AtmCore loadFull(String accountsFile, String transactionsFile, String checkpointFile)
+            throws IOException {
+        AtmCore core = new AtmCore(accountsFile, transactionsFile, checkpointFile, System::currentTimeMillis);
+        core.loadAccounts(0);
+        core.ledger.load();
+        core.startGuard();
+        return core;
+    }
+    
+    // Counts the last day's withdrawals so a restart, from a checkpoint or
+    // not, does not reset anyone's limits
+    private void startGuard() throws IOException {
+        guard = new WithdrawalGuard(getAccountCount());
+        long now = clock.getAsLong();
+        long since = now - Duration.ofDays(1).toMillis();
+        ledger.forEachWithdrawalSince(since, (accountNumber, timestamp, amount) ->
+                guard.record(accountNumber, amount, timestamp, now));
+    }
+    
+    private AccountCheckpoint openCheckpoint(String transactionsFile) {
+        try {
+            if (!Files.exists(checkpointFile)) return null;
+            AccountCheckpoint candidate = AccountCheckpoint.open(checkpointFile);
+            // Files only ever grow between checkpoints; anything else means they were replaced
+            Path ledgerFile = Paths.get(transactionsFile);
+            long accountsSize = Files.exists(accountsFile) ? Files.size(accountsFile) : 0;
+            long ledgerSize = Files.exists(ledgerFile) ? Files.size(ledgerFile) : 0;
+            if (accountsSize < candidate.getAccountsBytes() || ledgerSize < candidate.getLedgerBytes()) {
+                return null;
+            }
+            return candidate;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    private void loadAccounts(long offset) throws IOException {
+        accountsBytes = offset;
+        if (!Files.exists(accountsFile)) return;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(accountsFile))) {
+            in.skipNBytes(offset);
+            byte[] data = in.readAllBytes();
+            int end = data.length;
+            while (end > 0 && data[end - 1] != '\n') end--;
+            for (String line : new String(data, 0, end, StandardCharsets.UTF_8).split("\n")) {
+                String[] parts = line.split(",");
+                if (parts.length == 4) {
+                    // The first line for an account number wins, as it always has for login
+                    accounts.putIfAbsent(parts[0], new Account(parts[0], parts[1], 0.0, parts[3]));
+                }
+            }
+            accountsBytes = offset + end;
+        }
+    }
+    
+    public boolean isFromCheckpoint() { return checkpoint != null; }
+    public Ledger getLedger() { return ledger; }
+    
+    // Accounts added or re-read since the checkpoint are counted once, not again
+    public int getAccountCount() {
+        if (checkpoint == null) return accounts.size();
+        int count = checkpoint.getAccountCount();
+        for (String accountNumber : accounts.keySet()) {
+            if (!checkpoint.contains(accountNumber)) count++;
+        }
+        return count;
+    }
+    
+    // Account details without a balance, or null
+    private Account findAccount(String accountNumber) {
+        Account account = accounts.get(accountNumber);
+        if (account == null && checkpoint != null) {
+            account = checkpoint.find(accountNumber);
+        }
+        return account;
+    }
+    
+    // A fresh Account carrying the current balance, or null if the number or PIN is wrong
+    public Account login(String accountNumber, String pin) {
+        Account account = findAccount(accountNumber);
+        if (account == null || !account.getPin().equals(pin)) return null;
+        return new Account(accountNumber, pin, ledger.getBalance(accountNumber), account.getAccountHolderName());
+    }
+    
+    public synchronized Account createAccount(String name, String pin) throws IOException {
+        String accountNumber;
+        do {
+            accountNumber = generateAccountNumber();
+        } while (findAccount(accountNumber) != null);
+        
+        try (FileWriter fw = new FileWriter(accountsFile.toFile(), true);
+             BufferedWriter bw = new BufferedWriter(fw);
+             PrintWriter out = new PrintWriter(bw)) {
+            out.println(accountNumber + "," + pin + ",0.0," + name);
+        }
+        Account account = new Account(accountNumber, pin, 0.0, name);
+        accounts.put(accountNumber, account);
+        return new Account(accountNumber, pin, 0.0, name);
+    }
+    
+    public Transaction deposit(Account account, double amount) throws IOException {
+        Transaction txn = ledger.record(account.getAccountNumber(), "DEPOSIT", amount);
+        account.setBalance(txn.getBalanceAfter());
+        return txn;
+    }
+    
+    // Records the withdrawal only when the balance covers it and it passes the
+    // daily limit and velocity rules; the result says which check failed
+    public WithdrawalResult withdraw(Account account, double amount) throws IOException {
+        String accountNumber = account.getAccountNumber();
+        // Cheap early decline; the ledger checks again under the account's lock
+        if (amount > ledger.getBalance(accountNumber)) return WithdrawalResult.INSUFFICIENT_FUNDS;
+        long now = clock.getAsLong();
+        WithdrawalGuard.Decision decision = guard.reserve(accountNumber, amount, now);
+        if (decision == WithdrawalGuard.Decision.DAILY_LIMIT) return WithdrawalResult.DAILY_LIMIT;
+        if (decision == WithdrawalGuard.Decision.VELOCITY) return WithdrawalResult.VELOCITY;
+        Transaction txn;
+        try {
+            txn = ledger.recordWithdrawal(accountNumber, amount);
+        } catch (IOException e) {
+            guard.release(accountNumber, amount, now);
+            throw e;
+        }
+        if (txn == null) {
+            // A concurrent withdrawal spent the money first
+            guard.release(accountNumber, amount, now);
+            return WithdrawalResult.INSUFFICIENT_FUNDS;
+        }
+        account.setBalance(txn.getBalanceAfter());
+        return WithdrawalResult.APPROVED;
+    }
+    
+    public List<Transaction> getHistory(String accountNumber) throws IOException {
+        return ledger.readHistory(accountNumber);
+    }
+    
+    public synchronized void changePin(Account account, String newPin) throws IOException {
+        // Read all accounts, update this account's PIN, and write back
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(accountsFile.toFile()))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (parts.length == 4 && parts[0].equals(account.getAccountNumber())) {
+                    line = parts[0] + "," + newPin + "," + parts[2] + "," + parts[3];
+                }
+                lines.add(line);
+            }
+        }
+        try (PrintWriter out = new PrintWriter(new FileWriter(accountsFile.toFile()))) {
+            for (String line : lines) {
+                out.println(line);
+            }
+        }
+        // The checkpoint's copy of the accounts file is stale now
+        Files.deleteIfExists(checkpointFile);
+        account.setPin(newPin);
+        accounts.put(account.getAccountNumber(),
+                     new Account(account.getAccountNumber(), newPin, 0.0, account.getAccountHolderName()));
+    }
+    
+    // Writes a checkpoint of the current state; only valid after a full load
+    public void writeCheckpoint() throws IOException {
+        if (checkpoint != null) {
+            throw new IllegalStateException("Checkpoints are written from a full load");
+        }
+        List<Account> all = new ArrayList<>(accounts.values());
+        AccountCheckpoint.write(checkpointFile, all, ledger, accountsBytes, ledger.getLoadedBytes());
+    }
+    
+    private String generateAccountNumber() {
+        // Simple account number generation (10 digits)
+        Random random = ThreadLocalRandom.current();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            sb.append(random.nextInt(10));
+        }
+        return sb.toString();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        ledger.close();
+    }
+}
+
+// StartupBenchmark class: time from JVM start to the first served login.
+// To measure with a class-data-sharing archive, run it once from a jar with
+// -XX:ArchiveClassesAtExit=atm.jsa and then with -XX:SharedArchiveFile=atm.jsa.
+class StartupBenchmark {
+    public static void run(long mainEnteredMillis, String[] args, String accountsFile,
+                           String transactionsFile, String checkpointFile) throws IOException {
+        boolean full = false;
+        String accountNumber = null;
+        String pin = null;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--full")) {
+                full = true;
+            } else if (accountNumber == null) {
+                accountNumber = args[i];
+            } else {
+                pin = args[i];
+            }
+        }
+        if (accountNumber == null) {
+            // Default to the first account on file
+            try (BufferedReader br = new BufferedReader(new FileReader(accountsFile))) {
+                String[] parts = br.readLine().split(",");
+                accountNumber = parts[0];
+                pin = parts[1];
+            }
+        }
+        
+        long start = System.nanoTime();
+        AtmCore core = full ? AtmCore.loadFull(accountsFile, transactionsFile, checkpointFile)
+                            : AtmCore.bootstrap(accountsFile, transactionsFile, checkpointFile);
+        long booted = System.nanoTime();
+        Account account = core.login(accountNumber, pin);
+        long served = System.nanoTime();
+        long servedMillis = System.currentTimeMillis();
+        core.close();
+        
+        // Read the JVM start time last so loading JMX is not part of the measurement
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.out.println("Startup mode:          " + (core.isFromCheckpoint() ? "checkpoint" : "full CSV load"));
+        System.out.println("Accounts:              " + core.getAccountCount());
+        System.out.println("JVM start to main:     " + (mainEnteredMillis - jvmStart) + " ms");
+        System.out.printf("Bootstrap:             %.1f ms%n", (booted - start) / 1e6);
+        System.out.printf("First login:           %.3f ms (%s)%n", (served - booted) / 1e6,
+                          account != null ? "success" : "rejected");
+        System.out.println("JVM start to login:    " + (servedMillis - jvmStart) + " ms");
+    }
+}
+
+// GuardBenchmark class: latency WithdrawalGuard adds to a withdrawal, from
+// one thread up to many more threads than cores. Every 16th check is timed
+// on its own; approved reservations are released so the counters keep
+// exercising the approve path as well as the decline path.
+class GuardBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int ACCOUNTS = 100_000;
+    private static final int SAMPLE_EVERY = 16;
+    
+    public static void run(int seconds) throws InterruptedException {
+        String[] accounts = new String[ACCOUNTS];
+        Random random = new Random(42);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts[i] = String.format("%010d", random.nextLong(10_000_000_000L));
+        }
+        WithdrawalGuard guard = new WithdrawalGuard(ACCOUNTS);
+        
+        // A second of checks on the same table first, so reserve and release are
+        // compiled and the hot accounts' slots are claimed before the 1-thread level
+        runLevel(guard, accounts, 4, 1);
+        System.out.printf("%8s %14s %10s %10s %10s %10s%n", "threads", "checks/sec", "mean ns", "p50 ns", "p99 ns", "p99.9 ns");
+        for (int threads : THREAD_COUNTS) {
+            long[][] result = runLevel(guard, accounts, threads, seconds);
+            long checks = 0;
+            int samples = 0;
+            for (int t = 0; t < threads; t++) {
+                checks += result[t][0];
+                samples += (int) result[t][1];
+            }
+            long[] latencies = new long[samples];
+            int at = 0;
+            for (int t = 0; t < threads; t++) {
+                int count = (int) result[t][1];
+                System.arraycopy(result[t], 2, latencies, at, count);
+                at += count;
+            }
+            Arrays.sort(latencies);
+            double mean = Arrays.stream(latencies).average().orElse(0);
+            System.out.printf("%8d %14.0f %10.0f %10d %10d %10d%n", threads, checks / (double) seconds, mean,
+                              percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999));
+        }
     }
     
-    private String generateTransactionId() {
-        return "TXN" + System.currentTimeMillis() + ThreadLocalRandom.current().nextInt(1000, 9999);
+    // Value at fraction p of sorted latencies; also used by WorkloadReplay
+    static long percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
     }
     
-    @Override
-    public String toString() {
-        return transactionId + "," + accountNumber + "," + type + "," + amount + "," + dateTime + "," + balanceAfter;
+    // Per thread: {checks, samples, sample latencies...}
+    private static long[][] runLevel(WithdrawalGuard guard, String[] accounts, int threads, int seconds)
+            throws InterruptedException {
+        long[][] result = new long[threads][];
+        Thread[] workers = new Thread[threads];
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            workers[t] = new Thread(() -> result[index] = runWorker(guard, accounts, deadline));
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return result;
     }
     
-    public static Transaction fromString(String str) {
-        String[] parts = str.split(",");
-        if (parts.length != 6) return null;
+    private static long[] runWorker(WithdrawalGuard guard, String[] accounts, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] samples = new long[1 << 16];
+        int sampled = 0;
+        long checks = 0;
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < SAMPLE_EVERY; i++) {
+                // A few hot accounts, so the velocity and daily rules do trip
+                String account = accounts[random.nextInt(8) == 0 ? random.nextInt(16) : random.nextInt(accounts.length)];
+                double amount = 1 + random.nextInt(5000);
+                long now = System.currentTimeMillis();
+                long start = i == 0 ? System.nanoTime() : 0;
+                WithdrawalGuard.Decision decision = guard.reserve(account, amount, now);
+                if (i == 0) {
+                    long elapsed = System.nanoTime() - start;
+                    if (sampled == samples.length) {
+                        samples = Arrays.copyOf(samples, sampled * 2);
+                    }
+                    samples[sampled++] = elapsed;
+                }
+                if (decision == WithdrawalGuard.Decision.APPROVED) {
+                    guard.release(account, amount, now);
+                }
+            }
+            checks += SAMPLE_EVERY;
+        }
+        long[] result = new long[sampled + 2];
+        result[0] = checks;
+        result[1] = sampled;
+        System.arraycopy(samples, 0, result, 2, sampled);
+        return result;
+    }
+}
+
+// GuardCheck class: pins down how the velocity rule treats the edges of its
+// window, on a fixed clock so every run gives the same answers. Exits with
+// status 1 when any case disagrees.
+class GuardCheck {
+    private static final long BUCKET = WithdrawalGuard.WINDOW_MINUTES * 60_000L / WithdrawalGuard.BUCKETS;
+    // Start of an arbitrary bucket
+    private static final long BASE = 1_000_000 * BUCKET;
+    private static int failures = 0;
+    
+    public static void run() {
+        // A burst late in a bucket still counts once the next bucket boundaries have passed:
+        // ten withdrawals 8 minutes 1 second apart must not all go through
+        WithdrawalGuard guard = new WithdrawalGuard(16);
+        expect("burst late in a bucket", burst(guard, "1", BASE + minutes(1) + 59_000, 5), 5);
+        expect("same burst 8:01 later", burst(guard, "1", BASE + minutes(10), 5), 0);
+        
+        // Once a whole window has passed the account starts over
+        guard = new WithdrawalGuard(16);
+        burst(guard, "2", BASE, 5);
+        expect("a full window later", burst(guard, "2", BASE + minutes(12), 5), 5);
+        
+        // Half of the oldest bucket is still inside the window, so its five
+        // withdrawals count as two and a half and leave room for two more
+        guard = new WithdrawalGuard(16);
+        burst(guard, "3", BASE + minutes(1), 5);
+        expect("oldest bucket half inside", burst(guard, "3", BASE + minutes(11), 5), 2);
+        
+        // The limit holds within a single bucket too
+        guard = new WithdrawalGuard(16);
+        expect("one bucket", burst(guard, "4", BASE, 8), 5);
+        
+        System.out.println(failures == 0 ? "All guard checks passed" : failures + " guard check(s) failed");
+        if (failures > 0) System.exit(1);
+    }
+    
+    // Number approved out of count withdrawals of 1.00 all at the given time
+    private static int burst(WithdrawalGuard guard, String account, long now, int count) {
+        int approved = 0;
+        for (int i = 0; i < count; i++) {
+            if (guard.reserve(account, 1.0, now) == WithdrawalGuard.Decision.APPROVED) approved++;
+        }
+        return approved;
+    }
+    
+    private static long minutes(int minutes) {
+        return minutes * 60_000L;
+    }
+    
+    private static void expect(String name, int actual, int expected) {
+        boolean ok = actual == expected;
+        if (!ok) failures++;
+        System.out.printf("%-28s %s (approved %d, expected %d)%n", name, ok ? "ok" : "FAILED", actual, expected);
+    }
+}
+
+// WorkloadGenerator class: writes a reproducible data set (accounts.txt and
+// a historical transactions.txt) and a session script for WorkloadReplay.
+// The same seed and sizes always produce the same files. Account popularity
+// follows a Zipf distribution, and each session logs in and then runs a few
+// deposits, withdrawals and history views. Sessions are spread evenly over
+// the day after the history ends; each login line carries the session's
+// start in seconds from then, and its operations follow STEP_SECONDS apart.
+class WorkloadGenerator {
+    static final String ACCOUNTS_FILE = ATMSimulator.ACCOUNTS_FILE;
+    static final String TRANSACTIONS_FILE = ATMSimulator.TRANSACTIONS_FILE;
+    static final String SCRIPT_FILE = "workload.txt";
+    
+    // Operation mix after login, in percent; history views get the rest
+    private static final int DEPOSIT_PERCENT = 40;
+    private static final int WITHDRAW_PERCENT = 50;
+    private static final int MAX_OPERATIONS_PER_SESSION = 6;
+    // The historical ledger covers one fixed year so the output does not depend on the clock
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final long HISTORY_SECONDS = 366L * 24 * 60 * 60;
+    static final LocalDateTime SCRIPT_START = HISTORY_START.plusSeconds(HISTORY_SECONDS);
+    private static final long SCRIPT_SECONDS = 24L * 60 * 60;
+    static final long STEP_SECONDS = 20;
+    
+    private final long seed;
+    private final int accounts;
+    private final int ledgerSize;
+    private final int sessions;
+    private final double skew;
+    
+    public WorkloadGenerator(long seed, int accounts, int ledgerSize, int sessions, double skew) {
+        this.seed = seed;
+        this.accounts = accounts;
+        this.ledgerSize = ledgerSize;
+        this.sessions = sessions;
+        this.skew = skew;
+    }
+    
+    // Usage: --workload-generate <dir> [--seed N] [--accounts N] [--ledger N] [--sessions N] [--skew S]
+    public static void run(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: --workload-generate <dir> [--seed N] [--accounts N] [--ledger N] [--sessions N] [--skew S]");
+            return;
+        }
+        long seed = 42;
+        int accounts = 10_000;
+        int ledgerSize = 50_000;
+        int sessions = 5_000;
+        double skew = 1.0;
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                case "--accounts": accounts = Integer.parseInt(args[i + 1]); break;
+                case "--ledger": ledgerSize = Integer.parseInt(args[i + 1]); break;
+                case "--sessions": sessions = Integer.parseInt(args[i + 1]); break;
+                case "--skew": skew = Double.parseDouble(args[i + 1]); break;
+                default:
+                    System.out.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+        Path dir = Paths.get(args[1]);
+        new WorkloadGenerator(seed, accounts, ledgerSize, sessions, skew).generate(dir);
+        System.out.println("Wrote " + accounts + " accounts, " + ledgerSize + " transactions and "
+                           + sessions + " sessions to " + dir);
+    }
+    
+    public void generate(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        SplittableRandom random = new SplittableRandom(seed);
+        
+        String[] numbers = new String[accounts];
+        String[] pins = new String[accounts];
+        Set<String> used = new HashSet<>();
+        for (int i = 0; i < accounts; i++) {
+            do {
+                numbers[i] = String.format("%010d", random.nextLong(10_000_000_000L));
+            } while (!used.add(numbers[i]));
+            pins[i] = String.format("%04d", random.nextInt(10_000));
+        }
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(dir.resolve(ACCOUNTS_FILE)))) {
+            for (int i = 0; i < accounts; i++) {
+                out.println(numbers[i] + "," + pins[i] + ",0.0,Customer " + (i + 1));
+            }
+        }
+        
+        ZipfSampler popularity = new ZipfSampler(accounts, skew, random);
+        double[] balances = new double[accounts];
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(dir.resolve(TRANSACTIONS_FILE)))) {
+            for (int i = 0; i < ledgerSize; i++) {
+                int account = popularity.next();
+                String dateTime = HISTORY_START.plusSeconds(i * HISTORY_SECONDS / ledgerSize)
+                                               .format(Transaction.DATE_FORMAT);
+                String type;
+                double amount;
+                if (balances[account] < 10 || random.nextInt(100) < 60) {
+                    type = "DEPOSIT";
+                    amount = 10 + random.nextInt(4991);
+                    balances[account] += amount;
+                } else {
+                    type = "WITHDRAW";
+                    amount = Math.min(balances[account], 10 + random.nextInt(2000));
+                    balances[account] -= amount;
+                }
+                out.println("TXN" + (1_000_000_000L + i) + "," + numbers[account] + "," + type + ","
+                            + amount + "," + dateTime + "," + balances[account]);
+            }
+        }
+        
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(dir.resolve(SCRIPT_FILE)))) {
+            out.println("# seed=" + seed + " accounts=" + accounts + " ledger=" + ledgerSize
+                        + " sessions=" + sessions + " skew=" + skew);
+            for (int s = 0; s < sessions; s++) {
+                int account = popularity.next();
+                out.println("L " + numbers[account] + " " + pins[account] + " " + s * SCRIPT_SECONDS / sessions);
+                int operations = 1 + random.nextInt(MAX_OPERATIONS_PER_SESSION);
+                for (int o = 0; o < operations; o++) {
+                    int roll = random.nextInt(100);
+                    if (roll < DEPOSIT_PERCENT) {
+                        out.println("D " + (double) (10 + random.nextInt(2991)));
+                    } else if (roll < DEPOSIT_PERCENT + WITHDRAW_PERCENT) {
+                        out.println("W " + (double) (10 + random.nextInt(991)));
+                    } else {
+                        out.println("H");
+                    }
+                }
+            }
+        }
+    }
+    
+    // Draws account indexes with P(rank k) proportional to 1 / k^skew. Ranks
+    // are given to accounts in shuffled order, so the hot accounts are not
+    // simply the first ones in the file.
+    private static final class ZipfSampler {
+        private final double[] cumulative;
+        private final int[] accountAtRank;
+        private final SplittableRandom random;
+        
+        ZipfSampler(int accounts, double skew, SplittableRandom random) {
+            this.random = random;
+            cumulative = new double[accounts];
+            double sum = 0;
+            for (int k = 0; k < accounts; k++) {
+                sum += 1 / Math.pow(k + 1, skew);
+                cumulative[k] = sum;
+            }
+            accountAtRank = new int[accounts];
+            for (int i = 0; i < accounts; i++) {
+                accountAtRank[i] = i;
+            }
+            for (int i = accounts - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = accountAtRank[i];
+                accountAtRank[i] = accountAtRank[j];
+                accountAtRank[j] = swap;
+            }
+        }
+        
+        int next() {
+            double u = random.nextDouble() * cumulative[cumulative.length - 1];
+            int rank = Arrays.binarySearch(cumulative, u);
+            if (rank < 0) rank = -rank - 1;
+            return accountAtRank[Math.min(rank, cumulative.length - 1)];
+        }
+    }
+}
+
+// WorkloadReplay class: drives a generated script against AtmCore at a
+// target rate and reports throughput and latency percentiles per operation.
+// The data files are copied to a scratch directory first, so every run
+// starts from the same state. With a target rate, latency is measured from
+// when an operation was scheduled to start, so time spent queued behind a
+// slow operation is counted; rate 0 runs unthrottled and measures service
+// time only. Each account's sessions run on one worker, in script order, as
+// a card can only be in one ATM at a time. Withdrawal limits are judged by
+// the workload's own clock (each session's scripted start, plus a step per
+// operation), so the same script is approved and declined the same way at
+// any replay speed. Declined withdrawals return before the ledger is
+// touched, so they are reported apart from approved ones.
+class WorkloadReplay {
+    private static final String[] OPERATIONS = {"login", "deposit", "withdraw", "history", "declined"};
+    private static final byte LOGIN = 0;
+    private static final byte DEPOSIT = 1;
+    private static final byte WITHDRAW = 2;
+    private static final byte HISTORY = 3;
+    // Not in scripts: a WITHDRAW that was declined
+    private static final byte DECLINED = 4;
+    
+    // Workload time of the operation this thread is running, in epoch milliseconds
+    private static final ThreadLocal<long[]> workloadTime =
+            ThreadLocal.withInitial(() -> new long[] {scriptStartMillis()});
+    
+    // One login and the operations that follow it
+    private static final class Session {
+        final String accountNumber;
+        final String pin;
+        final byte[] operations;
+        final double[] amounts;
+        // Position of the login in the whole script, used to schedule it
+        final long firstOperation;
+        // Workload time of the login, in epoch milliseconds
+        final long startMillis;
+        
+        Session(String accountNumber, String pin, byte[] operations, double[] amounts, long firstOperation,
+                long startMillis) {
+            this.accountNumber = accountNumber;
+            this.pin = pin;
+            this.operations = operations;
+            this.amounts = amounts;
+            this.firstOperation = firstOperation;
+            this.startMillis = startMillis;
+        }
+    }
+    
+    // Latencies seen by one worker thread, per operation
+    private static final class Recorder {
+        final long[][] latencies = new long[OPERATIONS.length][1024];
+        final int[] counts = new int[OPERATIONS.length];
+        long failedLogins = 0;
         
+        void add(byte operation, long nanos) {
+            if (counts[operation] == latencies[operation].length) {
+                latencies[operation] = Arrays.copyOf(latencies[operation], counts[operation] * 2);
+            }
+            latencies[operation][counts[operation]++] = nanos;
+        }
+    }
+    
+    // Usage: --workload-replay <dir> [--rate ops/sec] [--threads N]
+    public static void run(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println("Usage: --workload-replay <dir> [--rate ops/sec] [--threads N]");
+            return;
+        }
+        double rate = 0;
+        int threads = 8;
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--rate": rate = Double.parseDouble(args[i + 1]); break;
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                default:
+                    System.out.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+        replay(Paths.get(args[1]), rate, threads);
+    }
+    
+    public static void replay(Path dir, double rate, int threads) throws IOException, InterruptedException {
+        List<Session> sessions = readScript(dir.resolve(WorkloadGenerator.SCRIPT_FILE));
+        Path scratch = Files.createTempDirectory("atm-replay");
+        String[] files = {WorkloadGenerator.ACCOUNTS_FILE, WorkloadGenerator.TRANSACTIONS_FILE,
+                          ATMSimulator.CHECKPOINT_FILE};
         try {
-            double amount = Double.parseDouble(parts[3]);
-            double balanceAfter = Double.parseDouble(parts[5]);
-            Transaction txn = new Transaction(parts[1], parts[2], amount, balanceAfter);
-            // Since we can't set the transactionId and datetime, we'll need to handle this differently
-            return txn;
-        } catch (NumberFormatException e) {
-            return null;
+            for (String file : files) {
+                if (Files.exists(dir.resolve(file))) {
+                    Files.copy(dir.resolve(file), scratch.resolve(file));
+                }
+            }
+            long bootStart = System.nanoTime();
+            try (AtmCore core = AtmCore.bootstrap(scratch.resolve(files[0]).toString(),
+                                                  scratch.resolve(files[1]).toString(),
+                                                  scratch.resolve(files[2]).toString(),
+                                                  () -> workloadTime.get()[0])) {
+                long bootNanos = System.nanoTime() - bootStart;
+                System.out.printf("Bootstrap: %.1f ms (%s, %d accounts)%n", bootNanos / 1e6,
+                                  core.isFromCheckpoint() ? "checkpoint" : "full CSV load", core.getAccountCount());
+                report(sessions, rate, threads, run(core, sessions, rate, threads));
+            }
+        } finally {
+            for (String file : files) {
+                Files.deleteIfExists(scratch.resolve(file));
+            }
+            Files.deleteIfExists(scratch);
         }
     }
     
-    public String getFormattedString() {
-        return String.format("%s | %s | %s | MK%.2f | MK%.2f", 
-                            dateTime, transactionId, type, amount, balanceAfter);
+    private static List<Session> readScript(Path script) throws IOException {
+        List<Session> sessions = new ArrayList<>();
+        long scriptStart = scriptStartMillis();
+        long position = 0;
+        try (BufferedReader br = Files.newBufferedReader(script)) {
+            String[] login = null;
+            ByteArrayOutputStream operations = new ByteArrayOutputStream();
+            List<Double> amounts = new ArrayList<>();
+            String line;
+            while (true) {
+                line = br.readLine();
+                if (line != null && (line.isEmpty() || line.startsWith("#"))) continue;
+                if (line == null || line.startsWith("L ")) {
+                    if (login != null) {
+                        double[] values = amounts.stream().mapToDouble(Double::doubleValue).toArray();
+                        // Scripts from before login lines had a start get one step per operation
+                        long startSeconds = login.length > 3 ? Long.parseLong(login[3])
+                                          : position * WorkloadGenerator.STEP_SECONDS;
+                        sessions.add(new Session(login[1], login[2], operations.toByteArray(), values, position,
+                                                 scriptStart + startSeconds * 1000));
+                        position += values.length + 1;
+                    }
+                    if (line == null) break;
+                    login = line.split(" ");
+                    operations.reset();
+                    amounts.clear();
+                    continue;
+                }
+                if (login == null) throw new IOException("Script operation before the first login: " + line);
+                switch (line.charAt(0)) {
+                    case 'D': operations.write(DEPOSIT); break;
+                    case 'W': operations.write(WITHDRAW); break;
+                    case 'H': operations.write(HISTORY); break;
+                    default: throw new IOException("Unknown script line: " + line);
+                }
+                amounts.add(line.length() > 2 ? Double.parseDouble(line.substring(2)) : 0.0);
+            }
+        }
+        return sessions;
+    }
+    
+    // Returns the per-thread recorders and, last, the elapsed time in nanoseconds
+    private static Object[] run(AtmCore core, List<Session> sessions, double rate, int threads)
+            throws IOException, InterruptedException {
+        List<List<Session>> assigned = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            assigned.add(new ArrayList<>());
+        }
+        for (Session session : sessions) {
+            assigned.get(Math.floorMod(session.accountNumber.hashCode(), threads)).add(session);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Recorder>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            for (int t = 0; t < threads; t++) {
+                List<Session> mine = assigned.get(t);
+                futures.add(pool.submit(() -> {
+                    Recorder recorder = new Recorder();
+                    for (Session session : mine) {
+                        replaySession(core, session, start, rate, recorder);
+                    }
+                    return recorder;
+                }));
+            }
+            Object[] result = new Object[threads + 1];
+            for (int t = 0; t < threads; t++) {
+                result[t] = futures.get(t).get();
+            }
+            result[threads] = System.nanoTime() - start;
+            return result;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    private static void replaySession(AtmCore core, Session session, long start, double rate,
+                                      Recorder recorder) throws IOException {
+        Account account = null;
+        for (int k = -1; k < session.operations.length; k++) {
+            long scheduled = System.nanoTime();
+            if (rate > 0) {
+                scheduled = start + (long) ((session.firstOperation + k + 1) * 1e9 / rate);
+                for (long delay = scheduled - System.nanoTime(); delay > 0; delay = scheduled - System.nanoTime()) {
+                    LockSupport.parkNanos(delay);
+                }
+            }
+            workloadTime.get()[0] = session.startMillis + (k + 1) * WorkloadGenerator.STEP_SECONDS * 1000;
+            byte operation = k < 0 ? LOGIN : session.operations[k];
+            switch (operation) {
+                case LOGIN:
+                    account = core.login(session.accountNumber, session.pin);
+                    break;
+                case DEPOSIT:
+                    core.deposit(account, session.amounts[k]);
+                    break;
+                case WITHDRAW:
+                    if (core.withdraw(account, session.amounts[k]) != AtmCore.WithdrawalResult.APPROVED) {
+                        operation = DECLINED;
+                    }
+                    break;
+                default:
+                    core.getHistory(session.accountNumber);
+            }
+            recorder.add(operation, System.nanoTime() - scheduled);
+            if (account == null) {
+                recorder.failedLogins++;
+                return;
+            }
+        }
+    }
+    
+    private static void report(List<Session> sessions, double rate, int threads, Object[] result) {
+        long elapsed = (Long) result[threads];
+        double seconds = elapsed / 1e9;
+        long total = 0;
+        long failedLogins = 0;
+        System.out.printf("%-10s %10s %12s %10s %10s %10s %10s%n", "operation", "count", "ops/sec",
+                          "p50 us", "p99 us", "p99.9 us", "max us");
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            int count = 0;
+            for (int t = 0; t < threads; t++) {
+                count += ((Recorder) result[t]).counts[op];
+            }
+            long[] latencies = new long[count];
+            int at = 0;
+            for (int t = 0; t < threads; t++) {
+                Recorder recorder = (Recorder) result[t];
+                System.arraycopy(recorder.latencies[op], 0, latencies, at, recorder.counts[op]);
+                at += recorder.counts[op];
+            }
+            Arrays.sort(latencies);
+            total += count;
+            System.out.printf("%-10s %10d %12.0f %10.1f %10.1f %10.1f %10.1f%n", OPERATIONS[op], count,
+                              count / seconds, GuardBenchmark.percentile(latencies, 0.50) / 1e3,
+                              GuardBenchmark.percentile(latencies, 0.99) / 1e3,
+                              GuardBenchmark.percentile(latencies, 0.999) / 1e3,
+                              count == 0 ? 0 : latencies[count - 1] / 1e3);
+        }
+        long withdrawals = 0;
+        long declined = 0;
+        for (int t = 0; t < threads; t++) {
+            Recorder recorder = (Recorder) result[t];
+            failedLogins += recorder.failedLogins;
+            withdrawals += recorder.counts[WITHDRAW] + recorder.counts[DECLINED];
+            declined += recorder.counts[DECLINED];
+        }
+        System.out.printf("Replayed %d sessions (%d operations) in %.2f s with %d threads: %.0f ops/sec%s%n",
+                          sessions.size(), total, seconds, threads, total / seconds,
+                          rate > 0 ? String.format(" (target %.0f)", rate) : "");
+        System.out.printf("Declined withdrawals: %d of %d (%.1f%%), failed logins: %d%n", declined, withdrawals,
+                          withdrawals == 0 ? 0 : 100.0 * declined / withdrawals, failedLogins);
+    }
+    
+    private static long scriptStartMillis() {
+        return WorkloadGenerator.SCRIPT_START.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 }
 
 // Main ATM class
 public class ATMSimulator {
-    private static final String ACCOUNTS_FILE = "accounts.txt";
-    private static final String TRANSACTIONS_FILE = "transactions.txt";
+    static final String ACCOUNTS_FILE = "accounts.txt";
+    static final String TRANSACTIONS_FILE = "transactions.txt";
+    static final String CHECKPOINT_FILE = "atm.checkpoint";
     private static final String BANK_NAME = "National Bank of RAS VAIP"; // Change based on group
     private Account currentAccount;
     private Scanner scanner;
+    private AtmCore core;
     
     public ATMSimulator() {
         scanner = new Scanner(System.in);
+        try {
+            core = AtmCore.bootstrap(ACCOUNTS_FILE, TRANSACTIONS_FILE, CHECKPOINT_FILE);
+        } catch (IOException e) {
+            System.out.println("Error loading accounts and transactions.");
+            System.exit(1);
+        }
     }
     
-    public static void main(String[] args) {
+    // Usage: ATMSimulator [--checkpoint | --startup-benchmark [--full] [account pin]
+    //                     | --guard-benchmark [seconds]
+    //                     | --workload-generate <dir> [options] | --workload-replay <dir> [options]]
+    public static void main(String[] args) throws IOException {
+        long mainEntered = System.currentTimeMillis();
+        if (args.length > 0 && args[0].equals("--checkpoint")) {
+            try (AtmCore core = AtmCore.loadFull(ACCOUNTS_FILE, TRANSACTIONS_FILE, CHECKPOINT_FILE)) {
+                core.writeCheckpoint();
+                System.out.println("Checkpoint written for " + core.getAccountCount() + " accounts.");
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--startup-benchmark")) {
+            StartupBenchmark.run(mainEntered, args, ACCOUNTS_FILE, TRANSACTIONS_FILE, CHECKPOINT_FILE);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--guard-benchmark")) {
+            try {
+                GuardBenchmark.run(args.length > 1 ? Integer.parseInt(args[1]) : 3);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--guard-check")) {
+            GuardCheck.run();
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--workload-generate")) {
+            WorkloadGenerator.run(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--workload-replay")) {
+            try {
+                WorkloadReplay.run(args);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        
         ATMSimulator atm = new ATMSimulator();
         atm.start();
     }
@@ -123,6 +1969,11 @@ public class ATMSimulator {
                 break;
             case 3:
                 System.out.println("Thank you for using " + BANK_NAME + " ATM. Goodbye!");
+                try {
+                    core.close();
+                } catch (IOException e) {
+                    System.out.println("Error saving transactions.");
+                }
                 System.exit(0);
                 break;
             default:
@@ -141,7 +1992,8 @@ public class ATMSimulator {
         System.out.println("3. Withdraw");
         System.out.println("4. Change PIN");
         System.out.println("5. Transaction History");
-        System.out.println("6. Logout");
+        System.out.println("6. Balance at Date");
+        System.out.println("7. Logout");
         System.out.print("Enter choice: ");
         
         int choice = getIntInput();
@@ -163,6 +2015,9 @@ public class ATMSimulator {
                 showTransactionHistory();
                 break;
             case 6:
+                showBalanceAtDate();
+                break;
+            case 7:
                 currentAccount = null;
                 System.out.println("You have been logged out successfully.");
                 break;
@@ -185,19 +2040,12 @@ public class ATMSimulator {
             return;
         }
         
-        // Generate account number (10 digits)
-        String accountNumber = generateAccountNumber();
-        
-        // Create account with initial balance of 0
-        Account newAccount = new Account(accountNumber, pin, 0.0, name);
-        
-        // Save account to file
-        try (FileWriter fw = new FileWriter(ACCOUNTS_FILE, true);
-             BufferedWriter bw = new BufferedWriter(fw);
-             PrintWriter out = new PrintWriter(bw)) {
-            out.println(accountNumber + "," + pin + ",0.0," + name);
+        // Create account with initial balance of 0; the balance column is kept
+        // for the file format, but balances come from the transaction ledger
+        try {
+            Account newAccount = core.createAccount(name, pin);
             System.out.println("Account created successfully!");
-            System.out.println("Your account number is: " + accountNumber);
+            System.out.println("Your account number is: " + newAccount.getAccountNumber());
         } catch (IOException e) {
             System.out.println("Error creating account. Please try again.");
         }
@@ -212,22 +2060,18 @@ public class ATMSimulator {
         System.out.print("Enter PIN: ");
         String pin = scanner.nextLine();
         
-        // Read accounts from file and validate
-        try (BufferedReader br = new BufferedReader(new FileReader(ACCOUNTS_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length == 4 && parts[0].equals(accountNumber) && parts[1].equals(pin)) {
-                    double balance = Double.parseDouble(parts[2]);
-                    currentAccount = new Account(accountNumber, pin, balance, parts[3]);
-                    System.out.println("Login successful! Welcome " + parts[3]);
-                    return;
-                }
-            }
-            System.out.println("Invalid account number or PIN.");
-        } catch (IOException e) {
+        if (core.getAccountCount() == 0) {
             System.out.println("No accounts found. Please create an account first.");
+            return;
+        }
+        
+        Account account = core.login(accountNumber, pin);
+        if (account == null) {
+            System.out.println("Invalid account number or PIN.");
+            return;
         }
+        currentAccount = account;
+        System.out.println("Login successful! Welcome " + account.getAccountHolderName());
     }
     
     private void checkBalance() {
@@ -245,16 +2089,15 @@ public class ATMSimulator {
             return;
         }
         
-        double newBalance = currentAccount.getBalance() + amount;
-        currentAccount.setBalance(newBalance);
-        
-        // Update account balance in file
-        updateAccountBalance();
-        
-        // Record transaction
-        recordTransaction("DEPOSIT", amount, newBalance);
+        // Record transaction; the ledger derives the new balance
+        try {
+            core.deposit(currentAccount, amount);
+        } catch (IOException e) {
+            System.out.println("Error recording transaction.");
+            return;
+        }
         
-        System.out.printf("Deposit successful! New balance: MK%.2f%n", newBalance);
+        System.out.printf("Deposit successful! New balance: MK%.2f%n", currentAccount.getBalance());
     }
     
     private void withdraw() {
@@ -267,21 +2110,31 @@ public class ATMSimulator {
             return;
         }
         
-        if (amount > currentAccount.getBalance()) {
-            System.out.println("Insufficient funds. Withdrawal failed.");
+        // Record transaction; the ledger derives the new balance
+        AtmCore.WithdrawalResult result;
+        try {
+            result = core.withdraw(currentAccount, amount);
+        } catch (IOException e) {
+            System.out.println("Error recording transaction.");
             return;
         }
         
-        double newBalance = currentAccount.getBalance() - amount;
-        currentAccount.setBalance(newBalance);
-        
-        // Update account balance in file
-        updateAccountBalance();
-        
-        // Record transaction
-        recordTransaction("WITHDRAW", amount, newBalance);
+        switch (result) {
+            case APPROVED:
+                break;
+            case INSUFFICIENT_FUNDS:
+                System.out.println("Insufficient funds. Withdrawal failed.");
+                return;
+            case DAILY_LIMIT:
+                System.out.printf("This would exceed your daily withdrawal limit of MK%.2f. Withdrawal failed.%n",
+                                  WithdrawalGuard.DAILY_LIMIT);
+                return;
+            case VELOCITY:
+                System.out.println("Too many withdrawals in a short time. Please try again later.");
+                return;
+        }
         
-        System.out.printf("Withdrawal successful! New balance: MK%.2f%n", newBalance);
+        System.out.printf("Withdrawal successful! New balance: MK%.2f%n", currentAccount.getBalance());
     }
     
     private void changePin() {
@@ -303,11 +2156,13 @@ public class ATMSimulator {
             return;
         }
         
-        // Update PIN in memory
-        currentAccount.setPin(newPin);
-        
-        // Update PIN in file
-        updateAccountPin();
+        // Update PIN in file and in memory
+        try {
+            core.changePin(currentAccount, newPin);
+        } catch (IOException e) {
+            System.out.println("Error updating PIN.");
+            return;
+        }
         
         System.out.println("PIN changed successfully!");
     }
@@ -315,19 +2170,13 @@ public class ATMSimulator {
     private void showTransactionHistory() {
         System.out.println("\n--- Transaction History ---");
         
-        try (BufferedReader br = new BufferedReader(new FileReader(TRANSACTIONS_FILE))) {
-            String line;
-            boolean found = false;
-            
-            while ((line = br.readLine()) != null) {
-                Transaction txn = Transaction.fromString(line);
-                if (txn != null && line.contains(currentAccount.getAccountNumber())) {
-                    System.out.println(txn.getFormattedString());
-                    found = true;
-                }
+        try {
+            List<Transaction> history = core.getHistory(currentAccount.getAccountNumber());
+            for (Transaction txn : history) {
+                System.out.println(txn.getFormattedString());
             }
             
-            if (!found) {
+            if (history.isEmpty()) {
                 System.out.println("No transactions found.");
             }
         } catch (IOException e) {
@@ -335,80 +2184,19 @@ public class ATMSimulator {
         }
     }
     
-    private String generateAccountNumber() {
-        // Simple account number generation (10 digits)
-        Random random = new Random();
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < 10; i++) {
-            sb.append(random.nextInt(10));
-        }
-        return sb.toString();
-    }
-    
-    private void updateAccountBalance() {
-        // Read all accounts, update the current account's balance, and write back
-        List<String> accounts = new ArrayList<>();
-        
-        try (BufferedReader br = new BufferedReader(new FileReader(ACCOUNTS_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length == 4 && parts[0].equals(currentAccount.getAccountNumber())) {
-                    line = parts[0] + "," + parts[1] + "," + currentAccount.getBalance() + "," + parts[3];
-                }
-                accounts.add(line);
-            }
-        } catch (IOException e) {
-            System.out.println("Error updating account balance.");
-            return;
-        }
-        
-        // Write updated accounts back to file
-        try (PrintWriter out = new PrintWriter(new FileWriter(ACCOUNTS_FILE))) {
-            for (String account : accounts) {
-                out.println(account);
-            }
-        } catch (IOException e) {
-            System.out.println("Error updating account balance.");
-        }
-    }
-    
-    private void updateAccountPin() {
-        // Read all accounts, update the current account's PIN, and write back
-        List<String> accounts = new ArrayList<>();
-        
-        try (BufferedReader br = new BufferedReader(new FileReader(ACCOUNTS_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length == 4 && parts[0].equals(currentAccount.getAccountNumber())) {
-                    line = parts[0] + "," + currentAccount.getPin() + "," + parts[2] + "," + parts[3];
-                }
-                accounts.add(line);
-            }
-        } catch (IOException e) {
-            System.out.println("Error updating PIN.");
-            return;
-        }
+    private void showBalanceAtDate() {
+        System.out.println("\n--- Balance at Date ---");
+        System.out.print("Enter date and time (yyyy-MM-dd HH:mm:ss): ");
+        String dateTime = scanner.nextLine();
         
-        // Write updated accounts back to file
-        try (PrintWriter out = new PrintWriter(new FileWriter(ACCOUNTS_FILE))) {
-            for (String account : accounts) {
-                out.println(account);
-            }
-        } catch (IOException e) {
-            System.out.println("Error updating PIN.");
-        }
-    }
-    
-    private void recordTransaction(String type, double amount, double balanceAfter) {
-        try (FileWriter fw = new FileWriter(TRANSACTIONS_FILE, true);
-             BufferedWriter bw = new BufferedWriter(fw);
-             PrintWriter out = new PrintWriter(bw)) {
-            Transaction txn = new Transaction(currentAccount.getAccountNumber(), type, amount, balanceAfter);
-            out.println(txn.toString());
+        try {
+            long timestamp = Transaction.parseTimestamp(dateTime);
+            double balance = core.getLedger().getBalanceAt(currentAccount.getAccountNumber(), timestamp);
+            System.out.printf("Your balance at %s was: MK%.2f%n", dateTime, balance);
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date. Please use the format yyyy-MM-dd HH:mm:ss.");
         } catch (IOException e) {
-            System.out.println("Error recording transaction.");
+            System.out.println("No transaction history available.");
         }
     }
     
@@ -1,40 +1,471 @@
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class PascalsTriangle {
-    public static void main(String[] args) {
-        Scanner scanner = new Scanner(System.in);
-        System.out.print("Enter the number of rows: ");
-        int rows = scanner.nextInt();
-        scanner.close();
+    // Usage: PascalsTriangle [rows] [--long | --big | --mod P] [--flat]
+    //        PascalsTriangle --coefficient N K [--long | --big | --mod P]
+    //        PascalsTriangle --table N [--mod P] [--file F]   (then "n k" queries on stdin)
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--coefficient")) {
+            printCoefficient(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--table")) {
+            answerTableQueries(args);
+            return;
+        }
+
+        int rows;
+        if (args.length > 0) {
+            rows = Integer.parseInt(args[0]);
+        } else {
+            Scanner scanner = new Scanner(System.in);
+            System.out.print("Enter the number of rows: ");
+            rows = scanner.nextInt();
+            scanner.close();
+        }
+
+        // Default to exact long values while they fit, BigInteger after that
+        PascalEngine.Mode mode = rows <= PascalEngine.MAX_LONG_ROWS ? PascalEngine.Mode.LONG : PascalEngine.Mode.BIG;
+        long modulus = 0;
+        boolean indent = true;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--long":
+                    mode = PascalEngine.Mode.LONG;
+                    break;
+                case "--big":
+                    mode = PascalEngine.Mode.BIG;
+                    break;
+                case "--mod":
+                    mode = PascalEngine.Mode.MOD;
+                    modulus = Long.parseLong(args[++i]);
+                    break;
+                case "--flat":
+                    indent = false;
+                    break;
+                default:
+                    System.out.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII), 1 << 16);
+        try {
+            PascalEngine.writeRows(rows, mode, modulus, out, indent);
+        } catch (ArithmeticException e) {
+            out.flush();
+            System.out.println();
+            System.out.println(e.getMessage() + " - use --big or --mod for more rows.");
+            return;
+        }
+        out.flush();
+    }
+
+    private static void printCoefficient(String[] args) {
+        int n = Integer.parseInt(args[1]);
+        int k = Integer.parseInt(args[2]);
+        String mode = args.length > 3 ? args[3] : "--big";
+        switch (mode) {
+            case "--long":
+                System.out.println(PascalEngine.binomial(n, k));
+                break;
+            case "--mod":
+                System.out.println(PascalEngine.binomialMod(n, k, Long.parseLong(args[4])));
+                break;
+            default:
+                System.out.println(PascalEngine.binomialBig(n, k));
+        }
+    }
+
+    private static void answerTableQueries(String[] args) throws IOException {
+        int maxN = Integer.parseInt(args[1]);
+        long modulus = BinomialTable.DEFAULT_MODULUS;
+        Path file = null;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("--mod")) {
+                modulus = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--file")) {
+                file = Paths.get(args[++i]);
+            } else {
+                System.out.println("Unknown option: " + args[i]);
+                return;
+            }
+        }
+
+        // Reuse a saved table when it covers the request, otherwise build (and save) one
+        BinomialTable table = null;
+        if (file != null && Files.exists(file)) {
+            table = BinomialTable.open(file);
+            if (table.getMaxN() < maxN || table.getModulus() != modulus) table = null;
+        }
+        if (table == null) {
+            table = file != null ? BinomialTable.buildToFile(maxN, modulus, file) : BinomialTable.build(maxN, modulus);
+        }
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII), 1 << 16);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII), 1 << 16);
+        StringBuilder line = new StringBuilder();
+        String query;
+        while ((query = in.readLine()) != null) {
+            query = query.trim();
+            if (query.isEmpty()) continue;
+            line.setLength(0);
+            // A bad query gets an error line of its own so the rest of the batch still runs
+            String[] parts = query.split("\\s+");
+            try {
+                if (parts.length != 2) throw new IllegalArgumentException("expected \"n k\"");
+                line.append(table.get(Integer.parseInt(parts[0]), Integer.parseInt(parts[1])));
+            } catch (IllegalArgumentException e) {
+                line.setLength(0);
+                line.append("error: ").append(query).append(": ").append(e.getMessage());
+            }
+            out.append(line.append('\n'));
+        }
+        out.flush();
+    }
+}
+
+// Engine that generates Pascal's triangle one row at a time in a single
+// buffer (O(rows) memory instead of the whole triangle) and looks up
+// single coefficients C(n, k) directly without building earlier rows.
+class PascalEngine {
+    enum Mode { LONG, BIG, MOD }
+
+    // Row 67 (n = 66) is the last one whose entries all fit in a long
+    public static final int MAX_LONG_ROWS = 67;
+    // Moduli are capped so the product of two residues fits in a long
+    public static final long MAX_MODULUS = Integer.MAX_VALUE;
 
-        int[][] triangle = new int[rows][];
+    // Writes the first `rows` rows to out, one line per row, each entry followed by a space
+    public static void writeRows(int rows, Mode mode, long modulus, Writer out, boolean indent) throws IOException {
+        if (rows < 0) throw new IllegalArgumentException("Row count must not be negative");
+        if (mode == Mode.MOD) checkModulus(modulus);
+        StringBuilder line = new StringBuilder();
+        long[] row = mode == Mode.BIG ? null : new long[Math.max(rows, 1)];
+        BigInteger[] bigRow = mode == Mode.BIG ? new BigInteger[Math.max(rows, 1)] : null;
 
         for (int i = 0; i < rows; i++) {
-            triangle[i] = new int[i + 1];
+            // Advance the buffer from row i-1 to row i, right to left so it can be done in place
+            if (mode == Mode.BIG) {
+                bigRow[i] = BigInteger.ONE;
+                for (int j = i - 1; j > 0; j--) {
+                    bigRow[j] = bigRow[j].add(bigRow[j - 1]);
+                }
+            } else {
+                row[i] = 1;
+                for (int j = i - 1; j > 0; j--) {
+                    if (mode == Mode.MOD) {
+                        long sum = row[j] + row[j - 1];
+                        row[j] = sum >= modulus ? sum - modulus : sum;
+                    } else if ((row[j] += row[j - 1]) < 0) {
+                        throw new ArithmeticException("Row " + (i + 1) + " overflows a long");
+                    }
+                }
+            }
 
-            // Calculate the numbers in the row
+            line.setLength(0);
+            if (indent) {
+                for (int j = 0; j < rows - i - 1; j++) {
+                    line.append(' ');
+                }
+            }
             for (int j = 0; j <= i; j++) {
-                if (j == 0 || j == i) {
-                    triangle[i][j] = 1;
+                if (mode == Mode.BIG) {
+                    line.append(bigRow[j]);
                 } else {
-                    triangle[i][j] = triangle[i - 1][j - 1] + triangle[i - 1][j];
+                    line.append(row[j]);
                 }
+                line.append(' ');
             }
+            line.append('\n');
+            out.append(line);
         }
+    }
 
-        // Print the triangle
-        for (int i = 0; i < rows; i++) {
-            // Print spaces before the numbers
-            for (int j = 0; j < rows - i - 1; j++) {
-                System.out.print(" ");
+    // C(n, k) as a long, throwing ArithmeticException if it does not fit
+    public static long binomial(int n, int k) {
+        if (k < 0 || k > n) return 0;
+        k = Math.min(k, n - k);
+        long c = 1;
+        for (int i = 1; i <= k; i++) {
+            // c * (n - k + i) / i is exact; divide out the common factor first
+            // so the intermediate product only overflows if C(n - k + i, i) does
+            long g = gcd(c, i);
+            c = Math.multiplyExact(c / g, (n - k + i) / (i / g));
+        }
+        return c;
+    }
+
+    public static BigInteger binomialBig(int n, int k) {
+        if (k < 0 || k > n) return BigInteger.ZERO;
+        k = Math.min(k, n - k);
+        BigInteger c = BigInteger.ONE;
+        for (int i = 1; i <= k; i++) {
+            c = c.multiply(BigInteger.valueOf(n - k + i)).divide(BigInteger.valueOf(i));
+        }
+        return c;
+    }
+
+    // C(n, k) mod p for a prime p, using Lucas' theorem on the base-p digits
+    public static long binomialMod(long n, long k, long p) {
+        checkModulus(p);
+        if (!BigInteger.valueOf(p).isProbablePrime(30)) {
+            throw new IllegalArgumentException("Coefficient lookup needs a prime modulus: " + p);
+        }
+        if (k < 0 || k > n) return 0;
+        long result = 1 % p;
+        while (n > 0 || k > 0) {
+            long ni = n % p;
+            long ki = k % p;
+            if (ki > ni) return 0;
+            result = result * smallBinomialMod(ni, ki, p) % p;
+            n /= p;
+            k /= p;
+        }
+        return result;
+    }
+
+    // C(n, k) mod p for n < p
+    private static long smallBinomialMod(long n, long k, long p) {
+        k = Math.min(k, n - k);
+        long numerator = 1;
+        long denominator = 1;
+        for (long i = 1; i <= k; i++) {
+            numerator = numerator * ((n - k + i) % p) % p;
+            denominator = denominator * (i % p) % p;
+        }
+        return numerator * powMod(denominator, p - 2, p) % p;
+    }
+
+    private static long powMod(long base, long exp, long mod) {
+        long result = 1 % mod;
+        base %= mod;
+        while (exp > 0) {
+            if ((exp & 1) == 1) result = result * base % mod;
+            base = base * base % mod;
+            exp >>= 1;
+        }
+        return result;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    private static void checkModulus(long modulus) {
+        if (modulus < 2 || modulus > MAX_MODULUS) {
+            throw new IllegalArgumentException("Modulus must be between 2 and " + MAX_MODULUS);
+        }
+    }
+}
+
+// Precomputed table of C(n, k) mod p for 0 <= k <= n <= maxN. By symmetry
+// only k <= n/2 is stored, as ints in one flat buffer (row n starts at
+// offset(n)). Rows are built in blocks with fork-join: each block seeds its
+// first row directly from factorials, then fills the rest with Pascal's rule.
+// The buffer can live on the heap or in a memory-mapped file.
+class BinomialTable {
+    public static final long DEFAULT_MODULUS = 1_000_000_007L;
+    private static final int FILE_MAGIC = 0x504E4331; // "PNC1"
+    private static final int HEADER_BYTES = 16;
+    private static final int BLOCK_ROWS = 256;
+    // Mapped buffers are limited to 2 GB
+    public static final long MAX_ENTRIES = (Integer.MAX_VALUE - HEADER_BYTES) / Integer.BYTES;
+
+    private final int maxN;
+    private final long modulus;
+    private final IntBuffer values;
+
+    private BinomialTable(int maxN, long modulus, IntBuffer values) {
+        this.maxN = maxN;
+        this.modulus = modulus;
+        this.values = values;
+    }
+
+    public int getMaxN() { return maxN; }
+    public long getModulus() { return modulus; }
+
+    // Index of C(n, 0) in the flat buffer: sum over m < n of (m/2 + 1)
+    static long offset(int n) {
+        return n + (long) (n / 2) * ((n - 1) / 2);
+    }
+
+    public static BinomialTable build(int maxN, long modulus) {
+        long entries = checkSize(maxN, modulus);
+        IntBuffer values = IntBuffer.allocate((int) entries);
+        fill(values, maxN, modulus);
+        return new BinomialTable(maxN, modulus, values);
+    }
+
+    public static BinomialTable buildToFile(int maxN, long modulus, Path file) throws IOException {
+        long entries = checkSize(maxN, modulus);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_BYTES + entries * Integer.BYTES);
+            mapped.putInt(0, FILE_MAGIC);
+            mapped.putInt(4, maxN);
+            mapped.putLong(8, modulus);
+            IntBuffer values = mapped.position(HEADER_BYTES).slice().asIntBuffer();
+            fill(values, maxN, modulus);
+            mapped.force();
+            return new BinomialTable(maxN, modulus, values);
+        }
+    }
+
+    public static BinomialTable open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (channel.size() < HEADER_BYTES || mapped.getInt(0) != FILE_MAGIC) {
+                throw new IOException("Not a binomial table file: " + file);
             }
+            int maxN = mapped.getInt(4);
+            long modulus = mapped.getLong(8);
+            if (channel.size() != HEADER_BYTES + offset(maxN + 1) * Integer.BYTES) {
+                throw new IOException("Binomial table file is truncated: " + file);
+            }
+            IntBuffer values = mapped.position(HEADER_BYTES).slice().asIntBuffer();
+            return new BinomialTable(maxN, modulus, values);
+        }
+    }
 
-            // Print the numbers in the row
-            for (int j = 0; j <= i; j++) {
-                System.out.print(triangle[i][j] + " ");
+    // C(n, k) mod p in O(1)
+    public long get(int n, int k) {
+        if (n < 0 || n > maxN) {
+            throw new IllegalArgumentException("n = " + n + " is outside the table [0, " + maxN + "]");
+        }
+        if (k < 0 || k > n) return 0;
+        return values.get((int) (offset(n) + Math.min(k, n - k)));
+    }
+
+    // Answers a batch of queries; results[i] = C(ns[i], ks[i]) mod p
+    public long[] getAll(int[] ns, int[] ks) {
+        long[] results = new long[ns.length];
+        for (int i = 0; i < ns.length; i++) {
+            results[i] = get(ns[i], ks[i]);
+        }
+        return results;
+    }
+
+    private static long checkSize(int maxN, long modulus) {
+        if (maxN < 0) throw new IllegalArgumentException("maxN must not be negative");
+        if (modulus < 2 || modulus > PascalEngine.MAX_MODULUS || !BigInteger.valueOf(modulus).isProbablePrime(30)) {
+            throw new IllegalArgumentException("Table modulus must be a prime up to " + PascalEngine.MAX_MODULUS);
+        }
+        long entries = offset(maxN + 1);
+        if (entries > MAX_ENTRIES) {
+            throw new IllegalArgumentException("Table for n <= " + maxN + " needs " + entries
+                    + " entries, more than " + MAX_ENTRIES);
+        }
+        return entries;
+    }
+
+    private static void fill(IntBuffer values, int maxN, long modulus) {
+        // Factorials mod p are invertible only below p; rows with n >= p are
+        // seeded with Lucas' theorem over the same tables
+        int top = (int) Math.min(maxN, modulus - 1);
+        long[] factorial = new long[top + 1];
+        long[] inverseFactorial = new long[top + 1];
+        factorial[0] = 1;
+        for (int i = 1; i <= top; i++) {
+            factorial[i] = factorial[i - 1] * i % modulus;
+        }
+        inverseFactorial[top] = BigInteger.valueOf(factorial[top])
+                .modInverse(BigInteger.valueOf(modulus)).longValue();
+        for (int i = top; i > 0; i--) {
+            inverseFactorial[i - 1] = inverseFactorial[i] * i % modulus;
+        }
+        ForkJoinPool.commonPool().invoke(new BuildTask(values, 0, maxN + 1, modulus, factorial, inverseFactorial));
+    }
+
+    private static class BuildTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient IntBuffer values;
+        private final int fromRow;
+        private final int toRow;
+        private final long modulus;
+        private final long[] factorial;
+        private final long[] inverseFactorial;
+
+        BuildTask(IntBuffer values, int fromRow, int toRow, long modulus, long[] factorial, long[] inverseFactorial) {
+            this.values = values;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.modulus = modulus;
+            this.factorial = factorial;
+            this.inverseFactorial = inverseFactorial;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow > BLOCK_ROWS) {
+                int mid = (fromRow + toRow) >>> 1;
+                invokeAll(new BuildTask(values, fromRow, mid, modulus, factorial, inverseFactorial),
+                        new BuildTask(values, mid, toRow, modulus, factorial, inverseFactorial));
+                return;
             }
 
-            System.out.println();
+            // Seed the first row of the block directly
+            long[] half = new long[(toRow - 1) / 2 + 1];
+            int n = fromRow;
+            for (int k = 0; k <= n / 2; k++) {
+                half[k] = seed(n, k);
+            }
+            store(n, half);
+
+            // Remaining rows in place, right to left; the middle entry of an
+            // even row mirrors across the centre of the previous odd row
+            for (n = fromRow + 1; n < toRow; n++) {
+                int last = n / 2;
+                if (n % 2 == 0) {
+                    long doubled = half[last - 1] * 2;
+                    half[last] = doubled >= modulus ? doubled - modulus : doubled;
+                    last--;
+                }
+                for (int k = last; k > 0; k--) {
+                    long sum = half[k] + half[k - 1];
+                    half[k] = sum >= modulus ? sum - modulus : sum;
+                }
+                store(n, half);
+            }
+        }
+
+        // C(n, k) mod p by Lucas' theorem, one factorial lookup per base-p digit
+        private long seed(long n, long k) {
+            long result = 1;
+            while (n > 0 || k > 0) {
+                int ni = (int) (n % modulus);
+                int ki = (int) (k % modulus);
+                if (ki > ni) return 0;
+                result = result * factorial[ni] % modulus * inverseFactorial[ki] % modulus
+                        * inverseFactorial[ni - ki] % modulus;
+                n /= modulus;
+                k /= modulus;
+            }
+            return result;
+        }
+
+        private void store(int n, long[] half) {
+            int base = (int) offset(n);
+            for (int k = 0; k <= n / 2; k++) {
+                values.put(base + k, (int) half[k]);
+            }
         }
     }
-}
\ No newline at end of file
+}
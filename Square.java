@@ -1,18 +1,144 @@
+import java.io.* ;
 import java.util.* ;
+import java.util.stream.IntStream ;
 public class Main {
-	public static int getSquare(int n){
+	public static long getSquare(long n){
 		return n*n ;
 	}
-	public static void main(String[] args) {
-		Scanner x = new Scanner(System.in) ;
-		
-		System.out.print("Enter the value of number you want the Squares of number up to that number : ") ;
-		int m = x.nextInt() ;
+	// Usage: Main [m] [--out <file>] [--parallel]
+	public static void main(String[] args) throws IOException {
+		int m ;
+		if (args.length > 0) {
+			m = Integer.parseInt(args[0]) ;
+		} else {
+			Scanner x = new Scanner(System.in) ;
+
+			System.out.print("Enter the value of number you want the Squares of number up to that number : ") ;
+			m = x.nextInt() ;
+		}
+
+		String file = null ;
+		boolean parallel = false ;
+		for (int i = 1 ; i < args.length ; i++) {
+			if (args[i].equals("--out") && i + 1 < args.length) {
+				file = args[++i] ;
+			} else if (args[i].equals("--parallel")) {
+				parallel = true ;
+			} else {
+				System.out.println("Unknown option: " + args[i]) ;
+				return ;
+			}
+		}
+
+		// Write straight to the file descriptor so rows bypass PrintStream locking
+		try (OutputStream out = file != null ? new FileOutputStream(file) : new FileOutputStream(FileDescriptor.out)) {
+			if (parallel) {
+				SquareTableWriter.writeParallel(m, out) ;
+			} else {
+				SquareTableWriter.write(m, out) ;
+			}
+		}
+	}
+}
+
+// Writes "k * k = k^2" rows for k = 1..m as ASCII bytes into one pre-sized
+// buffer, encoding the numbers by hand instead of through String/PrintStream.
+// The parallel mode encodes fixed-size chunks of rows concurrently and
+// writes them in order.
+class SquareTableWriter {
+	// "2147483647 * 2147483647 = 4611686014132420609\n"
+	static final int MAX_ROW_BYTES = 46 ;
+	private static final int BUFFER_BYTES = 1 << 20 ;
+	private static final int CHUNK_ROWS = 1 << 16 ;
+
+	private static final byte[] DIGIT_PAIRS = new byte[200] ;
+	static {
+		for (int i = 0 ; i < 100 ; i++) {
+			DIGIT_PAIRS[2 * i] = (byte) ('0' + i / 10) ;
+			DIGIT_PAIRS[2 * i + 1] = (byte) ('0' + i % 10) ;
+		}
+	}
+
+	public static void write(int m, OutputStream out) throws IOException {
+		byte[] buffer = new byte[BUFFER_BYTES] ;
+		int pos = 0 ;
 		for (int k = 1 ; k <= m ; k++) {
-			int result = getSquare(k) ;
-			
-			System.out.println(k+" * "+k+" = "+result) ;
+			if (pos > BUFFER_BYTES - MAX_ROW_BYTES) {
+				out.write(buffer, 0, pos) ;
+				pos = 0 ;
+			}
+			pos = encodeRow(k, buffer, pos) ;
+		}
+		out.write(buffer, 0, pos) ;
+		out.flush() ;
+	}
+
+	public static void writeParallel(int m, OutputStream out) throws IOException {
+		long chunks = (m + (long) CHUNK_ROWS - 1) / CHUNK_ROWS ;
+		// Encode a bounded batch of chunks at a time so memory stays flat
+		int batch = Runtime.getRuntime().availableProcessors() * 2 ;
+		for (long first = 0 ; first < chunks ; first += batch) {
+			long firstChunk = first ;
+			int count = (int) Math.min(batch, chunks - first) ;
+			byte[][] encoded = new byte[count][] ;
+			int[] lengths = new int[count] ;
+			IntStream.range(0, count).parallel().forEach(c -> {
+				long from = (firstChunk + c) * CHUNK_ROWS + 1 ;
+				long to = Math.min(m, from + CHUNK_ROWS - 1) ;
+				byte[] buffer = new byte[(int) (to - from + 1) * MAX_ROW_BYTES] ;
+				int pos = 0 ;
+				for (long k = from ; k <= to ; k++) {
+					pos = encodeRow(k, buffer, pos) ;
+				}
+				encoded[c] = buffer ;
+				lengths[c] = pos ;
+			}) ;
+			for (int c = 0 ; c < count ; c++) {
+				out.write(encoded[c], 0, lengths[c]) ;
+			}
+		}
+		out.flush() ;
+	}
+
+	static int encodeRow(long k, byte[] buffer, int pos) {
+		pos = encodeLong(k, buffer, pos) ;
+		buffer[pos++] = ' ' ;
+		buffer[pos++] = '*' ;
+		buffer[pos++] = ' ' ;
+		pos = encodeLong(k, buffer, pos) ;
+		buffer[pos++] = ' ' ;
+		buffer[pos++] = '=' ;
+		buffer[pos++] = ' ' ;
+		pos = encodeLong(Main.getSquare(k), buffer, pos) ;
+		buffer[pos++] = '\n' ;
+		return pos ;
+	}
+
+	// Writes a non-negative value's decimal digits at pos and returns the new position
+	static int encodeLong(long value, byte[] buffer, int pos) {
+		int end = pos + digitCount(value) ;
+		int i = end ;
+		while (value >= 100) {
+			int pair = (int) (value % 100) * 2 ;
+			value /= 100 ;
+			buffer[--i] = DIGIT_PAIRS[pair + 1] ;
+			buffer[--i] = DIGIT_PAIRS[pair] ;
+		}
+		if (value >= 10) {
+			int pair = (int) value * 2 ;
+			buffer[--i] = DIGIT_PAIRS[pair + 1] ;
+			buffer[--i] = DIGIT_PAIRS[pair] ;
+		} else {
+			buffer[--i] = (byte) ('0' + value) ;
+		}
+		return end ;
+	}
+
+	private static int digitCount(long value) {
+		int digits = 1 ;
+		for (long bound = 10 ; digits < 19 && value >= bound ; bound *= 10) {
+			digits++ ;
 		}
-		
+		return digits ;
 	}
-}
\ No newline at end of file
+}
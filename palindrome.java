@@ -1,3 +1,13 @@
+import java.io.*;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 public class PalindromeChecker {
@@ -15,18 +25,342 @@ public class PalindromeChecker {
         return true;
     }
 
-    public static void main(String[] args) {
+    // Usage: PalindromeChecker [--file <path> | --analyze <path>]
+    public static void main(String[] args) throws IOException {
+        if (args.length == 2 && args[0].equals("--analyze")) {
+            PalindromeIndex.analyzeLines(Paths.get(args[1]), System.out);
+            return;
+        }
+        if (args.length == 2 && args[0].equals("--file")) {
+            Path file = Paths.get(args[1]);
+            if (StreamingPalindrome.isPalindrome(file)) {
+                System.out.println(file + " is a palindrome.");
+            } else {
+                System.out.println(file + " is not a palindrome.");
+            }
+            return;
+        }
+
         Scanner scanner = new Scanner(System.in);
         System.out.print("Enter a word or number: ");
         String input = scanner.nextLine();
 
-        // Remove spaces and convert to lowercase for case-insensitive comparison
-        input = input.replaceAll("\\s+", "").toLowerCase();
-
-        if (isPalindrome(input)) {
+        // Spaces and case are skipped in place rather than by copying the input
+        if (StreamingPalindrome.isPalindrome(input)) {
             System.out.println(input + " is a palindrome.");
         } else {
             System.out.println(input + " is not a palindrome.");
         }
     }
-}
\ No newline at end of file
+}
+
+// Palindrome check that ignores whitespace and case without copying the
+// input. Two cursors walk in from both ends, skipping whitespace and
+// folding case one code point at a time, so memory use is constant.
+// Files are read as UTF-8 through memory-mapped windows, with an 8-byte
+// fast path for runs of printable ASCII.
+class StreamingPalindrome {
+    private static final long WINDOW_BYTES = 64L << 20;
+    private static final int BLOCK_BYTES = 64 << 10;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    public static boolean isPalindrome(CharSequence text) {
+        int left = 0;
+        int right = text.length();
+        while (true) {
+            int front = 0;
+            while (left < right && Character.isWhitespace(front = Character.codePointAt(text, left))) {
+                left += Character.charCount(front);
+            }
+            int back = 0;
+            while (right > left && Character.isWhitespace(back = Character.codePointBefore(text, right))) {
+                right -= Character.charCount(back);
+            }
+            // Stop when the cursors meet or only the middle code point is left
+            if (right - left <= Character.charCount(front)) return true;
+            if (fold(front) != fold(back)) return false;
+            left += Character.charCount(front);
+            right -= Character.charCount(back);
+        }
+    }
+
+    public static boolean isPalindrome(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Window head = new Window(channel, size, true);
+            Window tail = new Window(channel, size, false);
+            long left = 0;
+            long right = size;
+            while (right - left > 0) {
+                // Printable ASCII (no whitespace) 8 bytes at a time from each end
+                if (right - left >= 16) {
+                    long front = head.getLong(left);
+                    long back = Long.reverseBytes(tail.getLong(right - 8));
+                    if (isPrintableAscii(front) && isPrintableAscii(back)) {
+                        if (lowerAscii(front) != lowerAscii(back)) return false;
+                        left += 8;
+                        right -= 8;
+                        continue;
+                    }
+                }
+
+                // Single ASCII bytes without decoding
+                int frontByte = head.get(left);
+                if (frontByte < 0x80 && isAsciiWhitespace(frontByte)) {
+                    left++;
+                    continue;
+                }
+                int backByte = tail.get(right - 1);
+                if (backByte < 0x80 && isAsciiWhitespace(backByte)) {
+                    right--;
+                    continue;
+                }
+                if (frontByte < 0x80 && backByte < 0x80) {
+                    if (right - left <= 1) return true;
+                    if (lowerAscii(frontByte) != lowerAscii(backByte)) return false;
+                    left++;
+                    right--;
+                    continue;
+                }
+
+                long frontPoint = head.decodeForward(left);
+                int frontLength = (int) (frontPoint >>> 32);
+                if (Character.isWhitespace((int) frontPoint)) {
+                    left += frontLength;
+                    continue;
+                }
+                long backPoint = tail.decodeBackward(right);
+                int backLength = (int) (backPoint >>> 32);
+                if (Character.isWhitespace((int) backPoint)) {
+                    right -= backLength;
+                    continue;
+                }
+                if (right - left <= frontLength) return true;
+                if (fold((int) frontPoint) != fold((int) backPoint)) return false;
+                left += frontLength;
+                right -= backLength;
+            }
+            return true;
+        }
+    }
+
+    private static int fold(int codePoint) {
+        return Character.toLowerCase(Character.toUpperCase(codePoint));
+    }
+
+    // Same as Character.isWhitespace for code points below 0x80
+    private static boolean isAsciiWhitespace(int b) {
+        return b == ' ' || (b >= 0x09 && b <= 0x0D) || (b >= 0x1C && b <= 0x1F);
+    }
+
+    private static int lowerAscii(int b) {
+        return b >= 'A' && b <= 'Z' ? b | 0x20 : b;
+    }
+
+    // True when every byte is in 0x21..0x7E
+    private static boolean isPrintableAscii(long word) {
+        long below = (word - ONES * 0x21) & ~word & HIGH_BITS;
+        long above = ((word + ONES * (0x7F - 0x7E)) | word) & HIGH_BITS;
+        return (below | above) == 0;
+    }
+
+    // Sets bit 0x20 in every byte in 'A'..'Z'; bytes must be below 0x80
+    private static long lowerAscii(long word) {
+        long atLeastA = word + ONES * (0x80 - 'A');
+        long pastZ = word + ONES * (0x80 - 'Z' - 1);
+        return word | ((atLeastA & ~pastZ & HIGH_BITS) >>> 2);
+    }
+
+    // A memory-mapped region of the file that follows one cursor. The head
+    // window maps forward from the cursor, the tail window backward. Bytes
+    // are read through a small block copied in bulk from the mapping, which
+    // keeps the per-byte path to a plain array access.
+    private static final class Window {
+        private static final VarHandle LONG_VIEW =
+                MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+        private final FileChannel channel;
+        private final long size;
+        private final boolean forward;
+        private MappedByteBuffer buffer;
+        private long start = 0;
+        private long end = 0;
+        private final byte[] block = new byte[BLOCK_BYTES];
+        private long blockStart = 0;
+        private long blockEnd = 0;
+
+        Window(FileChannel channel, long size, boolean forward) {
+            this.channel = channel;
+            this.size = size;
+            this.forward = forward;
+        }
+
+        private void ensure(long pos, int length) throws IOException {
+            if (pos >= blockStart && pos + length <= blockEnd) return;
+            if (forward) {
+                blockStart = pos;
+                blockEnd = Math.min(size, pos + BLOCK_BYTES);
+            } else {
+                blockEnd = Math.min(size, pos + length);
+                blockStart = Math.max(0, blockEnd - BLOCK_BYTES);
+            }
+            if (blockStart < start || blockEnd > end) {
+                if (forward) {
+                    start = blockStart;
+                    end = Math.min(size, start + WINDOW_BYTES);
+                } else {
+                    end = blockEnd;
+                    start = Math.max(0, end - WINDOW_BYTES);
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            }
+            buffer.get((int) (blockStart - start), block, 0, (int) (blockEnd - blockStart));
+        }
+
+        int get(long pos) throws IOException {
+            ensure(pos, 1);
+            return block[(int) (pos - blockStart)] & 0xFF;
+        }
+
+        long getLong(long pos) throws IOException {
+            ensure(pos, 8);
+            return (long) LONG_VIEW.get(block, (int) (pos - blockStart));
+        }
+
+        // Code point starting at pos, packed as (byte length << 32) | code point.
+        // Malformed bytes decode one at a time as U+FFFD.
+        long decodeForward(long pos) throws IOException {
+            int lead = get(pos);
+            if (lead < 0x80) return (1L << 32) | lead;
+            int length = lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 0;
+            if (length == 0 || lead > 0xF4 || pos + length > size) return (1L << 32) | 0xFFFD;
+            int codePoint = lead & (0xFF >>> (length + 1));
+            for (int i = 1; i < length; i++) {
+                int next = get(pos + i);
+                if ((next & 0xC0) != 0x80) return (1L << 32) | 0xFFFD;
+                codePoint = (codePoint << 6) | (next & 0x3F);
+            }
+            return ((long) length << 32) | codePoint;
+        }
+
+        // Code point ending just before pos, packed like decodeForward
+        long decodeBackward(long pos) throws IOException {
+            long leadPos = pos - 1;
+            while (leadPos > 0 && pos - leadPos < 4 && (get(leadPos) & 0xC0) == 0x80) {
+                leadPos--;
+            }
+            long decoded = decodeForward(leadPos);
+            if (leadPos + (decoded >>> 32) != pos) return (1L << 32) | 0xFFFD;
+            return decoded;
+        }
+    }
+}
+
+// Manacher's algorithm over the code points of a text. After O(n)
+// preprocessing it gives the longest palindromic substring, the number of
+// palindromic substrings, and answers "is text[i..j] a palindrome" in O(1).
+// Indices are code point indices and comparison is exact (no case folding).
+class PalindromeIndex {
+    private static final int BATCH_LINES = 4096;
+
+    private final int[] codePoints;
+    // odd[i]: number of odd-length palindromes centred on i
+    private final int[] odd;
+    // even[i]: number of even-length palindromes centred between i-1 and i
+    private final int[] even;
+    private int longestStart = 0;
+    private int longestLength = 0;
+
+    public PalindromeIndex(CharSequence text) {
+        codePoints = text.codePoints().toArray();
+        int n = codePoints.length;
+        odd = new int[n];
+        even = new int[n];
+
+        for (int i = 0, l = 0, r = -1; i < n; i++) {
+            int k = i > r ? 1 : Math.min(odd[l + r - i], r - i + 1);
+            while (i - k >= 0 && i + k < n && codePoints[i - k] == codePoints[i + k]) k++;
+            odd[i] = k--;
+            if (i + k > r) {
+                l = i - k;
+                r = i + k;
+            }
+            if (2 * odd[i] - 1 > longestLength) {
+                longestLength = 2 * odd[i] - 1;
+                longestStart = i - odd[i] + 1;
+            }
+        }
+        for (int i = 0, l = 0, r = -1; i < n; i++) {
+            int k = i > r ? 0 : Math.min(even[l + r - i + 1], r - i + 1);
+            while (i - k - 1 >= 0 && i + k < n && codePoints[i - k - 1] == codePoints[i + k]) k++;
+            even[i] = k--;
+            if (i + k > r) {
+                l = i - k - 1;
+                r = i + k;
+            }
+            if (2 * even[i] > longestLength) {
+                longestLength = 2 * even[i];
+                longestStart = i - even[i];
+            }
+        }
+    }
+
+    public int length() { return codePoints.length; }
+    public int getLongestStart() { return longestStart; }
+    public int getLongestLength() { return longestLength; }
+
+    public String longestPalindrome() {
+        return new String(codePoints, longestStart, longestLength);
+    }
+
+    public long countPalindromicSubstrings() {
+        long count = 0;
+        for (int i = 0; i < codePoints.length; i++) {
+            count += odd[i] + even[i];
+        }
+        return count;
+    }
+
+    // Whether code points i..j (inclusive) form a palindrome
+    public boolean isPalindrome(int i, int j) {
+        if (i < 0 || j >= codePoints.length || i > j) {
+            throw new IndexOutOfBoundsException("Range [" + i + ", " + j + "] in text of length " + codePoints.length);
+        }
+        int length = j - i + 1;
+        if ((length & 1) == 1) {
+            return odd[(i + j) / 2] >= (length + 1) / 2;
+        }
+        return even[(i + j + 1) / 2] >= length / 2;
+    }
+
+    // Writes "<longest length>\t<palindrome count>\t<longest palindrome>" for
+    // every line of the file, in order. Lines are indexed in parallel batches.
+    public static void analyzeLines(Path file, OutputStream output) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 1 << 16);
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<String> batch = new ArrayList<>(BATCH_LINES);
+            String line;
+            while ((line = in.readLine()) != null) {
+                batch.add(line);
+                if (batch.size() == BATCH_LINES) {
+                    writeBatch(batch, out);
+                    batch.clear();
+                }
+            }
+            writeBatch(batch, out);
+        }
+        out.flush();
+    }
+
+    private static void writeBatch(List<String> batch, Writer out) throws IOException {
+        String[] results = batch.parallelStream().map(line -> {
+            PalindromeIndex index = new PalindromeIndex(line);
+            return index.getLongestLength() + "\t" + index.countPalindromicSubstrings()
+                    + "\t" + index.longestPalindrome() + "\n";
+        }).toArray(String[]::new);
+        for (String result : results) {
+            out.write(result);
+        }
+    }
+}
@@ -1,18 +1,38 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.* ;
+import java.util.stream.IntStream;
 public class PrimeChecker {
+    // Numbers up to this bound are answered from a shared sieve built on first use
+    public static final long DEFAULT_SIEVE_LIMIT = 1L << 24;
+    
+    private static class DefaultSieve {
+        static final PrimeSieve INSTANCE = new PrimeSieve(DEFAULT_SIEVE_LIMIT);
+    }
+    
+    public static PrimeSieve sieve() {
+        return DefaultSieve.INSTANCE;
+    }
+    
     public static boolean isPrime(int num) {
-        if (num <= 1) {
-            return false;
-        }
-        for (int i = 2; i <= Math.sqrt(num); i++) {
-            if (num % i == 0) {
-                return false;
-            }
-        }
-        return true;
+        return isPrime((long) num);
+    }
+    
+    public static boolean isPrime(long num) {
+        return sieve().isPrime(num);
     }
 
-    public static void main(String[] args) {
+    // Usage: PrimeChecker --batch <input> <output> [--binary] [--sieve-limit N]
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            runBatch(args);
+            return;
+        }
+        
         Scanner x = new Scanner(System.in) ;
         
         System.out.print("Enter the number : ") ;
@@ -24,4 +44,468 @@ public class PrimeChecker {
             System.out.println(num + " is not a prime number.");
         }
     }
-}
\ No newline at end of file
+    
+    private static void runBatch(String[] args) throws IOException {
+        if (args.length < 3 || !args[0].equals("--batch")) {
+            System.out.println("Usage: PrimeChecker --batch <input> <output> [--binary] [--sieve-limit N]");
+            return;
+        }
+        boolean binary = false;
+        long sieveLimit = DEFAULT_SIEVE_LIMIT;
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].equals("--binary")) {
+                binary = true;
+            } else if (args[i].equals("--sieve-limit") && i + 1 < args.length) {
+                sieveLimit = Long.parseLong(args[++i]);
+            } else {
+                System.out.println("Unknown option: " + args[i]);
+                return;
+            }
+        }
+        
+        long start = System.nanoTime();
+        PrimeSieve batchSieve = sieveLimit == DEFAULT_SIEVE_LIMIT ? sieve() : new PrimeSieve(sieveLimit);
+        PrimeBatchClassifier classifier = new PrimeBatchClassifier(batchSieve);
+        Path input = Paths.get(args[1]);
+        Path output = Paths.get(args[2]);
+        if (binary) {
+            classifier.classifyBinary(input, output);
+        } else {
+            classifier.classifyText(input, output);
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Classified " + classifier.getProcessed() + " numbers ("
+                + classifier.getPrimes() + " primes) in " + millis + " ms"
+                + (classifier.getInvalid() > 0 ? "; " + classifier.getInvalid() + " invalid tokens" : ""));
+    }
+}
+
+// Sieve of Eratosthenes over [0, limit], stored one bit per odd number.
+// The bit array is split into cache-sized segments that are sieved in
+// parallel; each segment owns whole words, so no two threads write the same
+// word. Numbers above the limit are answered with deterministic Miller-Rabin.
+class PrimeSieve {
+    // 32 KB per segment, so one segment plus the base primes stays in L1/L2
+    private static final int SEGMENT_WORDS = 4096;
+    private static final long MAX_LIMIT = 1L << 37;
+    
+    private final long limit;
+    // Bit i set means the odd number 2i+1 is composite
+    private final long[] composite;
+    
+    public PrimeSieve(long limit) {
+        if (limit < 2 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Sieve limit must be between 2 and " + MAX_LIMIT);
+        }
+        this.limit = limit;
+        long bitCount = (limit + 1) / 2;
+        composite = new long[(int) ((bitCount + 63) >>> 6)];
+        int[] basePrimes = oddPrimesUpTo((int) Math.sqrt((double) limit) + 1);
+        int segments = (composite.length + SEGMENT_WORDS - 1) / SEGMENT_WORDS;
+        IntStream.range(0, segments).parallel().forEach(seg -> sieveSegment(seg, basePrimes));
+        composite[0] |= 1L; // 1 is not prime
+        // Mark bits past the limit in the last word so range counts can ignore them
+        int tail = (int) (bitCount & 63);
+        if (tail != 0) {
+            composite[composite.length - 1] |= -1L << tail;
+        }
+    }
+    
+    private void sieveSegment(int seg, int[] basePrimes) {
+        int firstWord = seg * SEGMENT_WORDS;
+        int lastWord = Math.min(firstWord + SEGMENT_WORDS, composite.length);
+        long lowBit = (long) firstWord << 6;
+        long highBit = (long) lastWord << 6;
+        for (int p : basePrimes) {
+            long square = (long) p * p;
+            long startBit = square / 2;
+            if (startBit >= highBit) break;
+            if (startBit < lowBit) {
+                // First odd multiple of p at or after the segment start
+                long lowNum = 2 * lowBit + 1;
+                long m = ((lowNum + p - 1) / p) * p;
+                if ((m & 1) == 0) m += p;
+                startBit = m / 2;
+            }
+            for (long bit = startBit; bit < highBit; bit += p) {
+                composite[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+    }
+    
+    private static int[] oddPrimesUpTo(int n) {
+        boolean[] marked = new boolean[n + 1];
+        int count = 0;
+        int[] primes = new int[Math.max(16, n / 2)];
+        for (int i = 3; i <= n; i += 2) {
+            if (marked[i]) continue;
+            primes[count++] = i;
+            for (long j = (long) i * i; j <= n; j += 2L * i) {
+                marked[(int) j] = true;
+            }
+        }
+        return Arrays.copyOf(primes, count);
+    }
+    
+    public long getLimit() { return limit; }
+    
+    public boolean isPrime(long n) {
+        if (n > limit) return MillerRabin.isPrime(n);
+        if (n < 3) return n == 2;
+        if ((n & 1) == 0) return false;
+        long bit = n >>> 1;
+        return (composite[(int) (bit >>> 6)] & (1L << bit)) == 0;
+    }
+    
+    // Number of primes in [from, to]; both ends must lie within the sieve
+    public long countPrimes(long from, long to) {
+        checkRange(from, to);
+        if (from > to) return 0;
+        long count = (from <= 2 && to >= 2) ? 1 : 0;
+        long firstBit = Math.max(from, 3) / 2;
+        if (2 * firstBit + 1 < Math.max(from, 3)) firstBit++;
+        long lastBit = (to - 1) / 2;
+        if (to < 3 || firstBit > lastBit) return count;
+        int firstWord = (int) (firstBit >>> 6);
+        int lastWord = (int) (lastBit >>> 6);
+        long firstMask = -1L << firstBit;
+        long lastMask = -1L >>> (63 - (lastBit & 63));
+        if (firstWord == lastWord) {
+            return count + Long.bitCount(~composite[firstWord] & firstMask & lastMask);
+        }
+        count += Long.bitCount(~composite[firstWord] & firstMask);
+        for (int w = firstWord + 1; w < lastWord; w++) {
+            count += Long.bitCount(~composite[w]);
+        }
+        return count + Long.bitCount(~composite[lastWord] & lastMask);
+    }
+    
+    // All primes in [from, to] in ascending order; both ends must lie within the sieve
+    public long[] primesInRange(long from, long to) {
+        long total = countPrimes(from, to);
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many primes in range: " + total);
+        }
+        long[] primes = new long[(int) total];
+        int index = 0;
+        if (from <= 2 && to >= 2) primes[index++] = 2;
+        long p = nextSievedPrime(Math.max(from, 3) - 1);
+        while (index < primes.length) {
+            primes[index++] = p;
+            p = nextSievedPrime(p);
+        }
+        return primes;
+    }
+    
+    // Smallest prime strictly greater than n
+    public long nextPrime(long n) {
+        if (n < 2) return 2;
+        if (n < limit) {
+            long p = nextSievedPrime(n);
+            if (p > 0) return p;
+        }
+        long candidate = Math.max(n, limit) + 1;
+        if ((candidate & 1) == 0) candidate++;
+        for (; candidate > 0; candidate += 2) {
+            if (MillerRabin.isPrime(candidate)) return candidate;
+        }
+        throw new ArithmeticException("No prime above " + n + " fits in a long");
+    }
+    
+    // Next odd prime above n within the sieve, or -1 if there is none
+    private long nextSievedPrime(long n) {
+        long bit = (n + 1) / 2;
+        if (2 * bit + 1 <= n) bit++;
+        int word = (int) (bit >>> 6);
+        if (word >= composite.length) return -1;
+        long free = ~composite[word] & (-1L << bit);
+        while (free == 0) {
+            if (++word >= composite.length) return -1;
+            free = ~composite[word];
+        }
+        return 2 * (((long) word << 6) + Long.numberOfTrailingZeros(free)) + 1;
+    }
+    
+    private void checkRange(long from, long to) {
+        if (from < 0 || to > limit) {
+            throw new IllegalArgumentException("Range [" + from + ", " + to
+                    + "] is outside the sieved range [0, " + limit + "]");
+        }
+    }
+}
+
+// Deterministic Miller-Rabin for the whole long range. Moduli whose
+// products fit in a long use plain arithmetic; larger ones use Montgomery
+// multiplication so no 128-bit division is needed.
+class MillerRabin {
+    // These bases are sufficient for every n < 2^64
+    private static final long[] BASES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37};
+    // ...and these for every n < 3,215,031,751
+    private static final long[] SMALL_BASES = {2, 3, 5, 7};
+    // Largest modulus for which a * b (a, b < mod) cannot overflow
+    private static final long SMALL_MODULUS = 3037000499L;
+    
+    public static boolean isPrime(long n) {
+        if (n < 2) return false;
+        for (long p : BASES) {
+            if (n % p == 0) return n == p;
+        }
+        if (n < 37 * 37) return true;
+        return n < SMALL_MODULUS ? isPrimeSmall(n) : isPrimeMontgomery(n);
+    }
+    
+    private static boolean isPrimeSmall(long n) {
+        long d = n - 1;
+        int r = Long.numberOfTrailingZeros(d);
+        d >>= r;
+        for (long a : SMALL_BASES) {
+            long x = 1;
+            long base = a;
+            for (long e = d; e > 0; e >>= 1) {
+                if ((e & 1) == 1) x = x * base % n;
+                base = base * base % n;
+            }
+            if (x == 1 || x == n - 1) continue;
+            boolean witness = true;
+            for (int i = 1; i < r; i++) {
+                x = x * x % n;
+                if (x == n - 1) {
+                    witness = false;
+                    break;
+                }
+            }
+            if (witness) return false;
+        }
+        return true;
+    }
+    
+    private static boolean isPrimeMontgomery(long n) {
+        // -n^-1 mod 2^64 by Newton iteration (each step doubles the correct bits)
+        long inv = n;
+        for (int i = 0; i < 5; i++) {
+            inv *= 2 - n * inv;
+        }
+        long negInv = -inv;
+        long one = Long.remainderUnsigned(-n, n); // 2^64 mod n, i.e. 1 in Montgomery form
+        long r2 = one;
+        for (int i = 0; i < 64; i++) {
+            r2 = addMod(r2, r2, n); // 2^128 mod n, used to convert into Montgomery form
+        }
+        long minusOne = n - one;
+        
+        long d = n - 1;
+        int r = Long.numberOfTrailingZeros(d);
+        d >>= r;
+        for (long a : BASES) {
+            long base = montMul(a, r2, n, negInv);
+            long x = one;
+            for (long e = d; e > 0; e >>= 1) {
+                if ((e & 1) == 1) x = montMul(x, base, n, negInv);
+                base = montMul(base, base, n, negInv);
+            }
+            if (x == one || x == minusOne) continue;
+            boolean witness = true;
+            for (int i = 1; i < r; i++) {
+                x = montMul(x, x, n, negInv);
+                if (x == minusOne) {
+                    witness = false;
+                    break;
+                }
+            }
+            if (witness) return false;
+        }
+        return true;
+    }
+    
+    // a * b * 2^-64 mod n for a, b < n < 2^63
+    private static long montMul(long a, long b, long n, long negInv) {
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        long m = low * negInv;
+        long mnHigh = Math.multiplyHigh(m, n) + ((m >> 63) & n); // unsigned high word of m * n
+        // low + low(m * n) is 0 mod 2^64, with a carry unless low is 0
+        long t = high + mnHigh + (low != 0 ? 1 : 0);
+        return Long.compareUnsigned(t, n) >= 0 ? t - n : t;
+    }
+    
+    private static long addMod(long x, long y, long mod) {
+        return x >= mod - y ? x - (mod - y) : x + y;
+    }
+}
+
+// Batch classifier for files of numbers. The input is memory-mapped one
+// window at a time; each window is split into chunks that are classified in
+// parallel and then written out in input order.
+//
+// Text input: integers separated by whitespace or commas; each output line
+// is the number as written followed by " 1" (prime) or " 0" (not prime).
+// A token that is not a number in the long range gets "<token>: invalid"
+// instead, and the rest of the file is still classified.
+// Binary input: big-endian longs; the output is one byte (1 or 0) per number.
+class PrimeBatchClassifier {
+    private static final int WINDOW_BYTES = 64 << 20;
+    private static final byte[] PRIME = " 1\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NOT_PRIME = " 0\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] INVALID = ": invalid\n".getBytes(StandardCharsets.US_ASCII);
+    
+    private final PrimeSieve sieve;
+    private final int chunksPerWindow;
+    private long processed = 0;
+    private long primes = 0;
+    private long invalid = 0;
+    
+    public PrimeBatchClassifier(PrimeSieve sieve) {
+        this.sieve = sieve;
+        this.chunksPerWindow = Runtime.getRuntime().availableProcessors() * 4;
+    }
+    
+    public long getProcessed() { return processed; }
+    public long getPrimes() { return primes; }
+    public long getInvalid() { return invalid; }
+    
+    public void classifyBinary(Path input, Path output) throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = openOutput(output)) {
+            long size = in.size();
+            if (size % Long.BYTES != 0) {
+                throw new IOException("Binary input length is not a multiple of 8: " + input);
+            }
+            for (long pos = 0; pos < size; ) {
+                int windowBytes = (int) Math.min(WINDOW_BYTES, size - pos);
+                MappedByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY, pos, windowBytes);
+                int count = windowBytes / Long.BYTES;
+                byte[] flags = new byte[count];
+                int chunk = (count + chunksPerWindow - 1) / chunksPerWindow;
+                int windowPrimes = IntStream.range(0, chunksPerWindow).parallel().map(c -> {
+                    int from = c * chunk;
+                    int to = Math.min(from + chunk, count);
+                    int found = 0;
+                    for (int i = from; i < to; i++) {
+                        if (sieve.isPrime(window.getLong(i * Long.BYTES))) {
+                            flags[i] = 1;
+                            found++;
+                        }
+                    }
+                    return found;
+                }).sum();
+                writeFully(out, ByteBuffer.wrap(flags));
+                processed += count;
+                primes += windowPrimes;
+                pos += windowBytes;
+            }
+        }
+    }
+    
+    public void classifyText(Path input, Path output) throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = openOutput(output)) {
+            long size = in.size();
+            for (long pos = 0; pos < size; ) {
+                int windowBytes = (int) Math.min(WINDOW_BYTES, size - pos);
+                MappedByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY, pos, windowBytes);
+                // Never split a number across windows: stop after the last separator
+                int end = windowBytes;
+                if (pos + windowBytes < size) {
+                    while (end > 0 && !isSeparator(window.get(end - 1))) end--;
+                    if (end == 0) {
+                        throw new IOException("Token longer than " + WINDOW_BYTES + " bytes at offset " + pos);
+                    }
+                }
+                
+                // Chunk boundaries, each moved forward onto a separator
+                int[] bounds = new int[chunksPerWindow + 1];
+                bounds[chunksPerWindow] = end;
+                for (int c = 1; c < chunksPerWindow; c++) {
+                    int b = Math.max(bounds[c - 1], (int) ((long) end * c / chunksPerWindow));
+                    while (b < end && !isSeparator(window.get(b))) b++;
+                    bounds[c] = b;
+                }
+                
+                TextChunk[] chunks = new TextChunk[chunksPerWindow];
+                IntStream.range(0, chunksPerWindow).parallel().forEach(c ->
+                        chunks[c] = classifyTextChunk(window, bounds[c], bounds[c + 1]));
+                for (TextChunk chunk : chunks) {
+                    writeFully(out, ByteBuffer.wrap(chunk.bytes, 0, chunk.length));
+                    processed += chunk.count;
+                    primes += chunk.primes;
+                    invalid += chunk.invalid;
+                }
+                pos += end;
+            }
+        }
+    }
+    
+    private static class TextChunk {
+        byte[] bytes;
+        int length;
+        int count;
+        int primes;
+        int invalid;
+    }
+    
+    private TextChunk classifyTextChunk(ByteBuffer window, int from, int to) {
+        TextChunk chunk = new TextChunk();
+        // Each valid token of n bytes needs at most one separator in the input
+        // and becomes n + 3 bytes of output; invalid ones may need more room
+        chunk.bytes = new byte[(to - from) * 2 + 4];
+        int i = from;
+        while (i < to) {
+            byte b = window.get(i);
+            if (isSeparator(b)) {
+                i++;
+                continue;
+            }
+            int tokenStart = i;
+            boolean negative = b == '-';
+            if (negative) i++;
+            long value = 0;
+            int digits = 0;
+            boolean valid = true;
+            while (i < to && !isSeparator(window.get(i))) {
+                int d = window.get(i) - '0';
+                // Reject anything outside the long range, as Long.parseLong would
+                if (d < 0 || d > 9 || value > (Long.MAX_VALUE - d) / 10
+                        && !(negative && value == Long.MAX_VALUE / 10 && d == 8)) {
+                    valid = false;
+                } else if (valid) {
+                    value = value * 10 + d;
+                    digits++;
+                }
+                i++;
+            }
+            if (digits == 0) valid = false;
+            byte[] suffix = !valid ? INVALID : !negative && sieve.isPrime(value) ? PRIME : NOT_PRIME;
+            if (chunk.length + (i - tokenStart) + suffix.length > chunk.bytes.length) {
+                chunk.bytes = Arrays.copyOf(chunk.bytes, Math.max(chunk.bytes.length * 2,
+                        chunk.length + (i - tokenStart) + suffix.length));
+            }
+            for (int k = tokenStart; k < i; k++) {
+                chunk.bytes[chunk.length++] = window.get(k);
+            }
+            System.arraycopy(suffix, 0, chunk.bytes, chunk.length, suffix.length);
+            chunk.length += suffix.length;
+            if (!valid) {
+                chunk.invalid++;
+                continue;
+            }
+            chunk.count++;
+            if (suffix == PRIME) chunk.primes++;
+        }
+        return chunk;
+    }
+    
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == ',';
+    }
+    
+    private static FileChannel openOutput(Path output) throws IOException {
+        return FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+    
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+}
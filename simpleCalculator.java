@@ -2,9 +2,12 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.Stack;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.*;
 
 public class ScientificCalculator extends JFrame implements ActionListener {
+    private static final String MEMORY_FILE = "calculator_memory.dat";
     private JTextField display;
     private JTextArea historyArea;
     private double currentNumber = 0;
@@ -12,7 +15,7 @@ public class ScientificCalculator extends JFrame implements ActionListener {
     private boolean startNewNumber = true;
     private boolean degreeMode = true; // true for degrees, false for radians
     private boolean secondFunction = false;
-    private Stack<Double> memoryStack = new Stack<>();
+    private transient CalculatorMemory memory = new CalculatorMemory();
     
     // Button labels matching the image layout
     private final String[][] buttonLabels = {
@@ -22,7 +25,7 @@ public class ScientificCalculator extends JFrame implements ActionListener {
         {"x!", "7", "8", "9", "×"},
         {"1/x", "4", "5", "6", "−"},
         {"π", "1", "2", "3", "+"},
-        {"e", "0", ".", "="}
+        {"e", "0", ".", "MR", "="}
     };
     
     private JButton[][] buttons = new JButton[7][5];
@@ -34,6 +37,15 @@ public class ScientificCalculator extends JFrame implements ActionListener {
         setSize(500, 600);
         setLocationRelativeTo(null);
         setResizable(false);
+        
+        // Restore memory from the previous session and save it again on exit
+        memory.loadQuietly(new File(MEMORY_FILE));
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                memory.saveQuietly(new File(MEMORY_FILE));
+            }
+        });
     }
     
     private void createGUI() {
@@ -69,7 +81,7 @@ public class ScientificCalculator extends JFrame implements ActionListener {
                 buttons[i][j].addActionListener(this);
                 
                 // Color coding for different button types
-                if (Character.isDigit(buttonLabels[i][j].charAt(0)) {
+                if (Character.isDigit(buttonLabels[i][j].charAt(0))) {
                     buttons[i][j].setBackground(Color.WHITE);
                 } else if (buttonLabels[i][j].equals("=")) {
                     buttons[i][j].setBackground(new Color(255, 200, 100));
@@ -127,8 +139,37 @@ public class ScientificCalculator extends JFrame implements ActionListener {
                     break;
                     
                 case "⬆": // Memory recall/stack operations
-                    if (!memoryStack.isEmpty()) {
-                        display.setText(String.valueOf(memoryStack.peek()));
+                    if (!memory.isEmpty()) {
+                        display.setText(formatResult(memory.recall()));
+                        startNewNumber = true;
+                    }
+                    break;
+                    
+                case "M−": // Memory pop (second function of ⬆)
+                    if (!memory.isEmpty()) {
+                        display.setText(formatResult(memory.pop()));
+                        startNewNumber = true;
+                    }
+                    break;
+                    
+                case "MC": // Memory clear (second function of AC)
+                    memory.clear();
+                    break;
+                    
+                case "MR": // Recall a named register
+                    String recallName = promptRegisterName("Recall register:");
+                    if (recallName != null) {
+                        display.setText(memory.hasRegister(recallName)
+                                ? formatResult(memory.recall(recallName)) : "Error");
+                        startNewNumber = true;
+                    }
+                    break;
+                    
+                case "MS": // Store the display in a named register (second function of MR)
+                    String storeName = promptRegisterName("Store in register:");
+                    if (storeName != null) {
+                        memory.store(storeName, Double.parseDouble(display.getText()));
+                        addToHistory(storeName + " = " + display.getText());
                         startNewNumber = true;
                     }
                     break;
@@ -210,7 +251,9 @@ public class ScientificCalculator extends JFrame implements ActionListener {
                     result = value * value;
                     break;
                 case "x!": // Not typically a second function, but we'll use it for memory store
-                    memoryStack.push(value);
+                case "STO":
+                    memory.push(value);
+                    startNewNumber = true;
                     return;
                 case "1/x": // Not typically a second function
                     result = -value;
@@ -251,10 +294,10 @@ public class ScientificCalculator extends JFrame implements ActionListener {
                     // Parentheses handling would require a full expression parser
                     // For simplicity, we'll just add them to display
                     if (startNewNumber) {
-                        display.setText(command);
+                        display.setText(function);
                         startNewNumber = false;
                     } else {
-                        display.setText(display.getText() + command);
+                        display.setText(display.getText() + function);
                     }
                     return;
             }
@@ -337,8 +380,18 @@ public class ScientificCalculator extends JFrame implements ActionListener {
         buttons[1][1].setText(secondFunction ? "10^x" : "lg");
         buttons[1][2].setText(secondFunction ? "e^x" : "ln");
         buttons[2][0].setText(secondFunction ? "x²" : "√x");
+        buttons[2][1].setText(secondFunction ? "MC" : "AC");
+        buttons[2][2].setText(secondFunction ? "M−" : "⬆");
         buttons[3][0].setText(secondFunction ? "STO" : "x!");
         buttons[4][0].setText(secondFunction ? "±" : "1/x");
+        buttons[6][3].setText(secondFunction ? "MS" : "MR");
+    }
+    
+    // Register name typed by the user, or null if the dialog was cancelled or left empty
+    private String promptRegisterName(String message) {
+        String name = JOptionPane.showInputDialog(this, message);
+        if (name == null || name.trim().isEmpty()) return null;
+        return name.trim();
     }
     
     private void updateStatus() {
@@ -354,11 +407,187 @@ public class ScientificCalculator extends JFrame implements ActionListener {
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
             try {
-                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeel());
+                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
             } catch (Exception e) {
                 e.printStackTrace();
             }
             new ScientificCalculator().setVisible(true);
         });
     }
-}
\ No newline at end of file
+}
+
+// Memory class holding the calculator's value stack and named registers.
+// Values are kept in primitive double arrays so nothing is boxed, and the
+// class is not synchronized: it is confined to the thread that owns it (the
+// Swing event thread for the GUI, or the caller when used headless).
+class CalculatorMemory {
+    public static final int DEFAULT_STACK_CAPACITY = 64;
+    private static final int FILE_MAGIC = 0x43414C4D; // "CALM"
+    
+    // Bounded stack as a ring buffer; pushing onto a full stack drops the oldest value
+    private final double[] stack;
+    private int top = 0;
+    private int size = 0;
+    
+    // Named registers in an open-addressing table (power-of-two capacity)
+    private String[] registerNames = new String[16];
+    private double[] registerValues = new double[16];
+    private int registerCount = 0;
+    
+    public CalculatorMemory() {
+        this(DEFAULT_STACK_CAPACITY);
+    }
+    
+    public CalculatorMemory(int stackCapacity) {
+        if (stackCapacity <= 0) {
+            throw new IllegalArgumentException("Stack capacity must be positive");
+        }
+        stack = new double[stackCapacity];
+    }
+    
+    // Stack operations
+    public void push(double value) {
+        stack[top] = value;
+        top = (top + 1) % stack.length;
+        if (size < stack.length) size++;
+    }
+    
+    public double recall() {
+        if (size == 0) throw new IllegalStateException("Memory is empty");
+        return stack[(top - 1 + stack.length) % stack.length];
+    }
+    
+    public double pop() {
+        double value = recall();
+        top = (top - 1 + stack.length) % stack.length;
+        size--;
+        return value;
+    }
+    
+    public void clear() {
+        top = 0;
+        size = 0;
+    }
+    
+    public boolean isEmpty() { return size == 0; }
+    public int size() { return size; }
+    public int capacity() { return stack.length; }
+    
+    // Register operations
+    public void store(String name, double value) {
+        int slot = findSlot(name);
+        if (registerNames[slot] == null) {
+            registerNames[slot] = name;
+            registerCount++;
+        }
+        registerValues[slot] = value;
+        if (registerCount * 4 > registerNames.length * 3) {
+            growRegisters();
+        }
+    }
+    
+    public boolean hasRegister(String name) {
+        return registerNames[findSlot(name)] != null;
+    }
+    
+    public double recall(String name) {
+        int slot = findSlot(name);
+        if (registerNames[slot] == null) {
+            throw new IllegalArgumentException("Unknown register: " + name);
+        }
+        return registerValues[slot];
+    }
+    
+    public void clearRegisters() {
+        registerNames = new String[16];
+        registerValues = new double[16];
+        registerCount = 0;
+    }
+    
+    public int registerCount() { return registerCount; }
+    
+    private int findSlot(String name) {
+        int mask = registerNames.length - 1;
+        int h = name.hashCode();
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (registerNames[slot] != null && !registerNames[slot].equals(name)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+    
+    private void growRegisters() {
+        String[] oldNames = registerNames;
+        double[] oldValues = registerValues;
+        registerNames = new String[oldNames.length * 2];
+        registerValues = new double[oldNames.length * 2];
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] != null) {
+                int slot = findSlot(oldNames[i]);
+                registerNames[slot] = oldNames[i];
+                registerValues[slot] = oldValues[i];
+            }
+        }
+    }
+    
+    // Persistence: stack from oldest to newest, then the registers
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(size);
+            for (int i = size; i > 0; i--) {
+                out.writeDouble(stack[(top - i + stack.length) % stack.length]);
+            }
+            out.writeInt(registerCount);
+            for (int i = 0; i < registerNames.length; i++) {
+                if (registerNames[i] != null) {
+                    out.writeUTF(registerNames[i]);
+                    out.writeDouble(registerValues[i]);
+                }
+            }
+        }
+    }
+    
+    public void load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Not a calculator memory file: " + file);
+            }
+            clear();
+            clearRegisters();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                push(in.readDouble());
+            }
+            int registers = in.readInt();
+            for (int i = 0; i < registers; i++) {
+                String name = in.readUTF();
+                store(name, in.readDouble());
+            }
+        }
+    }
+    
+    // Variants used by the GUI, where a missing or unreadable file just means empty memory
+    public boolean loadQuietly(File file) {
+        if (!file.exists()) return false;
+        try {
+            load(file);
+            return true;
+        } catch (IOException e) {
+            clear();
+            clearRegisters();
+            return false;
+        }
+    }
+    
+    public boolean saveQuietly(File file) {
+        try {
+            save(file);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -1,63 +1,706 @@
-import java.util.ArrayList;
-import java.util.Scanner;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ToDoList {
+    private static final String TASKS_LOG = "tasks.log";
+    private static final String TASKS_SNAPSHOT = "tasks.snapshot";
+
+    // Usage: ToDoList [--serve <port> | --load-test [seconds] [--preload N]]
     public static void main(String[] args) {
-        ArrayList<String> tasks = new ArrayList<>();
+        if (args.length > 0) {
+            try {
+                if (args[0].equals("--serve") && args.length == 2) {
+                    new TaskService(Integer.parseInt(args[1])).serve();
+                } else if (args[0].equals("--load-test")) {
+                    int seconds = args.length > 1 && !args[1].startsWith("--") ? Integer.parseInt(args[1]) : 2;
+                    int preload = 0;
+                    for (int i = 1; i + 1 < args.length; i++) {
+                        if (args[i].equals("--preload")) preload = Integer.parseInt(args[i + 1]);
+                    }
+                    TaskLoadTest.run(seconds, preload);
+                } else {
+                    System.out.println("Usage: ToDoList [--serve <port> | --load-test [seconds] [--preload N]]");
+                }
+            } catch (IOException | InterruptedException e) {
+                System.out.println("Service error: " + e.getMessage());
+            }
+            return;
+        }
+
+        TaskStore tasks;
+        try {
+            tasks = TaskStore.open(Paths.get(TASKS_SNAPSHOT), Paths.get(TASKS_LOG));
+        } catch (IOException e) {
+            System.out.println("Error loading tasks: " + e.getMessage());
+            return;
+        }
         Scanner scanner = new Scanner(System.in);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
 
         while (true) {
             System.out.println("1. Add Task");
             System.out.println("2. View Tasks");
             System.out.println("3. Remove Task");
-            System.out.println("4. Exit");
+            System.out.println("4. Search Tasks");
+            System.out.println("5. Exit");
 
             System.out.print("Choose an option: ");
             int option = scanner.nextInt();
             scanner.nextLine(); // Consume newline left-over
 
-            switch (option) {
-                case 1:
-                    System.out.print("Enter task: ");
-                    String task = scanner.nextLine();
-                    tasks.add(task);
-                    System.out.println("Task added!");
-                    break;
-                case 2:
-                    if (tasks.isEmpty()) {
-                        System.out.println("No tasks available!");
-                    } else {
-                        System.out.println("Tasks:");
-                        for (int i = 0; i < tasks.size(); i++) {
-                            System.out.println((i + 1) + ". " + tasks.get(i));
+            try {
+                switch (option) {
+                    case 1:
+                        System.out.print("Enter task: ");
+                        String task = scanner.nextLine();
+                        tasks.add(task);
+                        System.out.println("Task added!");
+                        break;
+                    case 2:
+                        if (tasks.isEmpty()) {
+                            System.out.println("No tasks available!");
+                        } else {
+                            System.out.println("Tasks:");
+                            tasks.render(out);
                         }
-                    }
-                    break;
-                case 3:
-                    if (tasks.isEmpty()) {
-                        System.out.println("No tasks available!");
-                    } else {
-                        System.out.println("Tasks:");
-                        for (int i = 0; i < tasks.size(); i++) {
-                            System.out.println((i + 1) + ". " + tasks.get(i));
+                        break;
+                    case 3:
+                        if (tasks.isEmpty()) {
+                            System.out.println("No tasks available!");
+                        } else {
+                            System.out.println("Tasks:");
+                            tasks.render(out);
+                            System.out.print("Enter task number to remove: ");
+                            int taskNumber = scanner.nextInt();
+                            scanner.nextLine(); // Consume newline left-over
+                            if (taskNumber > 0 && taskNumber <= tasks.size()) {
+                                tasks.remove(taskNumber - 1);
+                                System.out.println("Task removed!");
+                            } else {
+                                System.out.println("Invalid task number!");
+                            }
                         }
-                        System.out.print("Enter task number to remove: ");
-                        int taskNumber = scanner.nextInt();
-                        scanner.nextLine(); // Consume newline left-over
-                        if (taskNumber > 0 && taskNumber <= tasks.size()) {
-                            tasks.remove(taskNumber - 1);
-                            System.out.println("Task removed!");
+                        break;
+                    case 4:
+                        System.out.print("Enter keyword or prefix: ");
+                        String query = scanner.nextLine();
+                        int[] matches = tasks.search(query);
+                        if (matches.length == 0) {
+                            System.out.println("No matching tasks!");
                         } else {
-                            System.out.println("Invalid task number!");
+                            tasks.render(out, matches);
                         }
+                        break;
+                    case 5:
+                        tasks.close();
+                        System.out.println("Exiting...");
+                        return;
+                    default:
+                        System.out.println("Invalid option!");
+                }
+            } catch (IOException e) {
+                System.out.println("Error saving tasks: " + e.getMessage());
+            }
+        }
+    }
+}
+
+// Task list kept in insertion slots with a Fenwick tree over which slots
+// are still alive, so the task at a position (and the position of a slot)
+// is found in O(log n) and removal never shifts the other tasks.
+//
+// Changes are appended to a log ("A\t<text>" or "R\t<slot>") and the list
+// is periodically written to a snapshot, after which the log starts over.
+// Both files start with a "#<generation>" line; a log is only replayed on
+// top of the snapshot of the same generation, so a crash between writing a
+// snapshot and truncating the log cannot apply the old entries twice.
+// A keyword index maps every lowercased word to the slots containing it.
+class TaskStore implements Closeable {
+    private static final int SNAPSHOT_EVERY = 1000;
+
+    private final Path snapshotFile;
+    private final Path logFile;
+    private Writer log;
+    private int logEntries = 0;
+    private long generation = 0;
+
+    private String[] slots = new String[16];
+    private int[] tree = new int[17];
+    private int slotCount = 0;
+    private int size = 0;
+    private final TreeMap<String, Set<Integer>> wordIndex = new TreeMap<>();
+
+    private TaskStore(Path snapshotFile, Path logFile) {
+        this.snapshotFile = snapshotFile;
+        this.logFile = logFile;
+    }
+
+    public static TaskStore open(Path snapshotFile, Path logFile) throws IOException {
+        TaskStore store = new TaskStore(snapshotFile, logFile);
+        if (Files.exists(snapshotFile)) {
+            try (BufferedReader in = Files.newBufferedReader(snapshotFile, StandardCharsets.UTF_8)) {
+                store.generation = readGeneration(in, snapshotFile);
+                String line;
+                while ((line = in.readLine()) != null) {
+                    store.insert(unescape(line));
+                }
+            }
+        }
+        boolean replayLog = false;
+        if (Files.exists(logFile)) {
+            try (BufferedReader in = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+                replayLog = Files.size(logFile) > 0 && readGeneration(in, logFile) == store.generation;
+                String line;
+                while (replayLog && (line = in.readLine()) != null) {
+                    if (line.startsWith("A\t")) {
+                        store.insert(unescape(line.substring(2)));
+                    } else if (line.startsWith("R\t")) {
+                        store.delete(Integer.parseInt(line.substring(2)));
                     }
-                    break;
-                case 4:
-                    System.out.println("Exiting...");
-                    return;
-                default:
-                    System.out.println("Invalid option!");
+                    store.logEntries++;
+                }
+            }
+        }
+        if (replayLog) {
+            store.log = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } else {
+            store.startLog();
+        }
+        return store;
+    }
+
+    private static long readGeneration(BufferedReader in, Path file) throws IOException {
+        String header = in.readLine();
+        if (header == null || !header.startsWith("#")) {
+            throw new IOException("Missing generation header in " + file);
+        }
+        return Long.parseLong(header.substring(1));
+    }
+
+    private void startLog() throws IOException {
+        if (log != null) log.close();
+        log = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        log.write("#" + generation + "\n");
+        log.flush();
+        logEntries = 0;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public void add(String task) throws IOException {
+        insert(task);
+        appendLog("A\t" + escape(task));
+    }
+
+    // Removes the task at a 0-based position
+    public String remove(int position) throws IOException {
+        int slot = slotAt(position);
+        String task = slots[slot];
+        delete(slot);
+        appendLog("R\t" + slot);
+        return task;
+    }
+
+    public String get(int position) {
+        return slots[slotAt(position)];
+    }
+
+    // 0-based positions of tasks containing a word that starts with every
+    // term of the query (case-insensitive), in list order
+    public int[] search(String query) {
+        Set<Integer> result = null;
+        for (String term : words(query)) {
+            Set<Integer> matches = new HashSet<>();
+            for (Set<Integer> slotsForWord : wordIndex.subMap(term, term + Character.MAX_VALUE).values()) {
+                matches.addAll(slotsForWord);
+            }
+            if (result == null) {
+                result = matches;
+            } else {
+                result.retainAll(matches);
+            }
+        }
+        if (result == null) return new int[0];
+        int[] positions = new int[result.size()];
+        int i = 0;
+        for (int slot : result) {
+            positions[i++] = prefixCount(slot);
+        }
+        Arrays.sort(positions);
+        return positions;
+    }
+
+    // Writes the whole list as "n. task" lines through one buffered writer
+    public void render(Writer out) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int number = 1;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slots[slot] == null) continue;
+            line.setLength(0);
+            line.append(number++).append(". ").append(slots[slot]).append('\n');
+            out.append(line);
+        }
+        out.flush();
+    }
+
+    public void render(Writer out, int[] positions) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int position : positions) {
+            line.setLength(0);
+            line.append(position + 1).append(". ").append(get(position)).append('\n');
+            out.append(line);
+        }
+        out.flush();
+    }
+
+    // Writes a compacted snapshot and starts a new, empty log
+    public void snapshot() throws IOException {
+        Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            out.write("#" + (generation + 1));
+            out.newLine();
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (slots[slot] != null) {
+                    out.write(escape(slots[slot]));
+                    out.newLine();
+                }
+            }
+        }
+        Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        generation++;
+        compact();
+        startLog();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (logEntries > 0) snapshot();
+        log.close();
+    }
+
+    private void appendLog(String entry) throws IOException {
+        log.write(entry);
+        log.write('\n');
+        log.flush();
+        if (++logEntries >= SNAPSHOT_EVERY) {
+            snapshot();
+        }
+    }
+
+    private void insert(String task) {
+        if (slotCount == slots.length) {
+            slots = Arrays.copyOf(slots, slots.length * 2);
+            rebuildTree();
+        }
+        int slot = slotCount++;
+        slots[slot] = task;
+        size++;
+        update(slot, 1);
+        for (String word : words(task)) {
+            wordIndex.computeIfAbsent(word, w -> new HashSet<>()).add(slot);
+        }
+    }
+
+    private void delete(int slot) {
+        if (slot < 0 || slot >= slotCount || slots[slot] == null) {
+            throw new IllegalStateException("No task in slot " + slot);
+        }
+        for (String word : words(slots[slot])) {
+            Set<Integer> slotsForWord = wordIndex.get(word);
+            if (slotsForWord != null) {
+                slotsForWord.remove(slot);
+                if (slotsForWord.isEmpty()) wordIndex.remove(word);
+            }
+        }
+        slots[slot] = null;
+        size--;
+        update(slot, -1);
+    }
+
+    // Renumbers the live tasks into slots 0..size-1 (only valid right after a snapshot)
+    private void compact() {
+        List<String> live = new ArrayList<>(size);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slots[slot] != null) live.add(slots[slot]);
+        }
+        slots = new String[16];
+        tree = new int[17];
+        slotCount = 0;
+        size = 0;
+        wordIndex.clear();
+        for (String task : live) {
+            insert(task);
+        }
+    }
+
+    // Slot holding the task at a 0-based position, by descending the Fenwick tree
+    private int slotAt(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Task " + (position + 1) + " of " + size);
+        }
+        int remaining = position + 1;
+        int index = 0;
+        for (int step = Integer.highestOneBit(slots.length); step > 0; step >>= 1) {
+            int next = index + step;
+            if (next <= slots.length && tree[next] < remaining) {
+                index = next;
+                remaining -= tree[index];
+            }
+        }
+        return index;
+    }
+
+    // Number of live tasks before a slot, i.e. its 0-based position
+    private int prefixCount(int slot) {
+        int count = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    private void update(int slot, int delta) {
+        for (int i = slot + 1; i <= slots.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private void rebuildTree() {
+        tree = new int[slots.length + 1];
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slots[slot] != null) tree[slot + 1] += 1;
+        }
+        for (int i = 1; i <= slots.length; i++) {
+            int parent = i + (i & -i);
+            if (parent <= slots.length) tree[parent] += tree[i];
+        }
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) words.add(word);
+        }
+        return words;
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
+
+// Multi-user task service over a line protocol on a local TCP port. Each
+// connection is handled on its own virtual thread. Every user's list is an
+// immutable TaskList behind an AtomicReference: writers swap in a new
+// version with compare-and-set, readers just take the current one, so
+// viewers never block writers and no locks are held.
+//
+// Requests:  ADD <user> <task> | VIEW <user> | REMOVE <user> <number> | QUIT
+// Responses: OK | ERR <message> | "n. task" lines followed by END
+class TaskService implements Closeable {
+    private static final int CHUNK_SIZE = 64;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentHashMap<String, AtomicReference<TaskList>> users = new ConcurrentHashMap<>();
+
+    // One user's tasks as an immutable list of chunks of up to CHUNK_SIZE
+    // tasks. A write copies only the chunk it changes plus the chunk index,
+    // O(CHUNK_SIZE + n / CHUNK_SIZE) instead of O(n), and that is also all a
+    // failed compare-and-set has to redo.
+    private static final class TaskList {
+        static final TaskList EMPTY = new TaskList(new String[0][], 0);
+
+        final String[][] chunks;
+        final int size;
+
+        TaskList(String[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        TaskList add(String task) {
+            int last = chunks.length - 1;
+            if (last >= 0 && chunks[last].length < CHUNK_SIZE) {
+                String[][] next = chunks.clone();
+                next[last] = Arrays.copyOf(chunks[last], chunks[last].length + 1);
+                next[last][chunks[last].length] = task;
+                return new TaskList(next, size + 1);
+            }
+            String[][] next = Arrays.copyOf(chunks, chunks.length + 1);
+            next[chunks.length] = new String[] {task};
+            return new TaskList(next, size + 1);
+        }
+
+        String get(int position) {
+            int c = 0;
+            while (position >= chunks[c].length) {
+                position -= chunks[c++].length;
+            }
+            return chunks[c][position];
+        }
+
+        // Caller checks that 0 <= position < size
+        TaskList remove(int position) {
+            int c = 0;
+            while (position >= chunks[c].length) {
+                position -= chunks[c++].length;
+            }
+            String[] chunk = chunks[c];
+            String[] smaller = new String[chunk.length - 1];
+            System.arraycopy(chunk, 0, smaller, 0, position);
+            System.arraycopy(chunk, position + 1, smaller, position, smaller.length - position);
+            // Fold a small chunk into its successor so removals do not leave the index full of slivers
+            boolean merge = c + 1 < chunks.length && smaller.length < CHUNK_SIZE / 2
+                    && smaller.length + chunks[c + 1].length <= CHUNK_SIZE;
+            if (merge) {
+                String[] merged = Arrays.copyOf(smaller, smaller.length + chunks[c + 1].length);
+                System.arraycopy(chunks[c + 1], 0, merged, smaller.length, chunks[c + 1].length);
+                smaller = merged;
+            }
+            int dropped = smaller.length == 0 ? 1 : merge ? 1 : 0;
+            String[][] next = new String[chunks.length - dropped][];
+            System.arraycopy(chunks, 0, next, 0, c);
+            int after = merge ? c + 2 : c + 1;
+            int at = c;
+            if (smaller.length > 0) next[at++] = smaller;
+            System.arraycopy(chunks, after, next, at, chunks.length - after);
+            return new TaskList(next, size - 1);
+        }
+
+        String[] toArray() {
+            String[] tasks = new String[size];
+            int at = 0;
+            for (String[] chunk : chunks) {
+                System.arraycopy(chunk, 0, tasks, at, chunk.length);
+                at += chunk.length;
+            }
+            return tasks;
+        }
+    }
+
+    public TaskService(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+    }
+
+    public int getPort() { return serverSocket.getLocalPort(); }
+
+    public void serve() {
+        System.out.println("Task service listening on port " + getPort());
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.submit(() -> handle(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.out.println("Error accepting connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            StringBuilder response = new StringBuilder();
+            String request;
+            while ((request = in.readLine()) != null && !request.equals("QUIT")) {
+                response.setLength(0);
+                execute(request, response);
+                out.append(response);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Client went away; nothing to clean up beyond the socket
+        }
+    }
+
+    void execute(String request, StringBuilder response) {
+        String[] parts = request.split(" ", 3);
+        if (parts.length < 2) {
+            response.append("ERR malformed request\n");
+            return;
+        }
+        String user = parts[1];
+        switch (parts[0]) {
+            case "ADD":
+                if (parts.length < 3 || parts[2].isEmpty()) {
+                    response.append("ERR missing task\n");
+                } else {
+                    add(user, parts[2]);
+                    response.append("OK\n");
+                }
+                break;
+            case "VIEW":
+                String[] tasks = view(user);
+                for (int i = 0; i < tasks.length; i++) {
+                    response.append(i + 1).append(". ").append(tasks[i]).append('\n');
+                }
+                response.append("END\n");
+                break;
+            case "REMOVE":
+                try {
+                    int number = Integer.parseInt(parts.length > 2 ? parts[2] : "");
+                    response.append(remove(user, number - 1) != null ? "OK\n" : "ERR invalid task number\n");
+                } catch (NumberFormatException e) {
+                    response.append("ERR invalid task number\n");
+                }
+                break;
+            default:
+                response.append("ERR unknown command\n");
+        }
+    }
+
+    public void add(String user, String task) {
+        AtomicReference<TaskList> list = users.computeIfAbsent(user, u -> new AtomicReference<>(TaskList.EMPTY));
+        while (true) {
+            TaskList current = list.get();
+            if (list.compareAndSet(current, current.add(task))) return;
+        }
+    }
+
+    // The user's list as of now
+    public String[] view(String user) {
+        AtomicReference<TaskList> list = users.get(user);
+        return list == null ? new String[0] : list.get().toArray();
+    }
+
+    // Removes the task at a 0-based position, or returns null if there is none
+    public String remove(String user, int position) {
+        AtomicReference<TaskList> list = users.get(user);
+        if (list == null) return null;
+        while (true) {
+            TaskList current = list.get();
+            if (position < 0 || position >= current.size) return null;
+            if (list.compareAndSet(current, current.remove(position))) return current.get(position);
+        }
+    }
+}
+
+// Load test for TaskService: for increasing client counts, every client
+// connects on its own virtual thread and runs a 60/20/20 view/add/remove
+// mix against one of 64 users for a fixed time; reports ops/sec per level.
+// With --preload every user starts with that many tasks and the mix shifts
+// to 10/45/45, so the cost of writes to long lists is what gets measured.
+// A one-second level at 8 clients runs first and is not reported: until the
+// JIT has compiled the server and client paths, the first level would time
+// the interpreter rather than the service.
+class TaskLoadTest {
+    private static final int[] CLIENT_COUNTS = {1, 2, 4, 8, 16, 32, 64, 128, 256};
+    private static final int USERS = 64;
+
+    public static void run(int seconds, int preload) throws IOException, InterruptedException {
+        TaskService service = new TaskService(0);
+        Thread server = Thread.ofVirtual().start(service::serve);
+        int viewPercent = preload > 0 ? 10 : 60;
+        try {
+            for (int u = 0; u < USERS; u++) {
+                for (int t = 0; t < preload; t++) {
+                    service.add("user" + u, "preloaded task " + t);
+                }
+            }
+            runLevel(service.getPort(), 8, 1, viewPercent);
+            System.out.printf("%8s %14s %14s%n", "clients", "ops/sec", "per client");
+            for (int clients : CLIENT_COUNTS) {
+                double rate = runLevel(service.getPort(), clients, seconds, viewPercent) / (double) seconds;
+                System.out.printf("%8d %14.0f %14.0f%n", clients, rate, rate / clients);
+            }
+        } finally {
+            service.close();
+        }
+        server.join();
+    }
+
+    private static long runLevel(int port, int clients, int seconds, int viewPercent)
+            throws IOException, InterruptedException {
+        LongAdder ops = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Future<Void>> results = new ArrayList<>();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                results.add(pool.submit(() -> runClient(port, client, deadline, ops, viewPercent)));
+            }
+        }
+        // A client that could not connect or lost its connection would otherwise just lower the rate
+        int failed = 0;
+        Throwable first = null;
+        for (Future<Void> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                failed++;
+                if (first == null) first = e.getCause();
+            }
+        }
+        if (failed > 0) {
+            throw new IOException(failed + " of " + clients + " clients failed: " + first, first);
+        }
+        return ops.sum();
+    }
+
+    private static Void runClient(int port, int client, long deadline, LongAdder ops, int viewPercent)
+            throws IOException {
+        String user = "user" + (client % USERS);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            long count = 0;
+            while (System.nanoTime() < deadline) {
+                int roll = random.nextInt(100);
+                boolean view = roll < viewPercent;
+                if (view) {
+                    out.write("VIEW " + user + "\n");
+                } else if (roll < viewPercent + (100 - viewPercent) / 2) {
+                    out.write("ADD " + user + " task " + count + "\n");
+                } else {
+                    out.write("REMOVE " + user + " 1\n");
+                }
+                out.flush();
+                String line;
+                do {
+                    line = in.readLine();
+                } while (view && line != null && !line.equals("END"));
+                count++;
             }
+            out.write("QUIT\n");
+            out.flush();
+            ops.add(count);
         }
+        return null;
     }
-}
\ No newline at end of file
+}